@@ -0,0 +1,61 @@
+package org.acme.benchmarks;
+
+import org.acme.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilsBenchmark {
+
+    private final String requestedAt = "2025-07-15T12:34:56.789Z";
+    private final String requestedAtWithOffset = "2025-07-15T15:34:56.789+03:00";
+    private final Instant instant = Instant.parse(requestedAt);
+    private final long epochMilli = instant.toEpochMilli();
+    private final byte[] buffer = new byte[DateUtils.LENGTH];
+
+    @Benchmark
+    public Long parseIsoUtcToEpochMilli() {
+        return DateUtils.parseIsoUtcToEpochMilli(requestedAt);
+    }
+
+    @Benchmark
+    public Long parseWithOffset() {
+        return DateUtils.parseIsoUtcToEpochMilli(requestedAtWithOffset);
+    }
+
+    @Benchmark
+    public Instant parseWithFormatter() {
+        return Instant.from(DateUtils.FORMATTER.parse(requestedAt));
+    }
+
+    @Benchmark
+    public String format() {
+        return DateUtils.formatEpochMilli(epochMilli);
+    }
+
+    @Benchmark
+    public byte[] formatIntoBuffer() {
+        DateUtils.writeEpochMilli(epochMilli, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public String formatWithFormatter() {
+        return DateUtils.FORMATTER.format(instant);
+    }
+}
@@ -0,0 +1,54 @@
+package org.acme.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.repository.redis.codec.BinaryPaymentCodec;
+import org.acme.repository.redis.codec.JsonPaymentCodec;
+import org.acme.repository.redis.dbo.PaymentDBO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentCodecBenchmark {
+
+    private final PaymentDBO payment = new PaymentDBO(UUID.randomUUID(), new BigDecimal("19.90"), "default");
+    private final JsonPaymentCodec jsonCodec = new JsonPaymentCodec(new ObjectMapper());
+    private final BinaryPaymentCodec binaryCodec = new BinaryPaymentCodec();
+    private final byte[] json = jsonCodec.encode(payment);
+    private final byte[] binary = binaryCodec.encode(payment);
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonCodec.encode(payment);
+    }
+
+    @Benchmark
+    public PaymentDBO decodeJson() {
+        return jsonCodec.decode(json);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binaryCodec.encode(payment);
+    }
+
+    @Benchmark
+    public PaymentDBO decodeBinary() {
+        return binaryCodec.decode(binary);
+    }
+}
@@ -0,0 +1,45 @@
+package org.acme.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.dto.PaymentRequestDTO;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.utils.PaymentRequestParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full Jackson binding of a POST /payments body against the scanning parser used by the resource.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentRequestBindingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] body = "{\"correlationId\":\"4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3\",\"amount\":19.90}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public PaymentRequestDTO jackson() throws IOException {
+        return objectMapper.readValue(body, PaymentRequestDTO.class);
+    }
+
+    @Benchmark
+    public PaymentQueueItens parser() {
+        return PaymentRequestParser.parse(body);
+    }
+}
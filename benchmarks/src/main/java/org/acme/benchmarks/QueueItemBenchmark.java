@@ -0,0 +1,53 @@
+package org.acme.benchmarks;
+
+import org.acme.entity.PaymentQueueItens;
+import org.acme.repository.redis.codec.QueueRecordCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode on the API side and decode on the worker side of a queue entry, in the legacy
+ * {@code correlationId:amount} text layout and in the fixed 24-byte record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueItemBenchmark {
+
+    private final PaymentQueueItens item = new PaymentQueueItens(UUID.fromString("4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3"), 1990);
+    private final byte[] text = QueueRecordCodec.encodeText(item);
+    private final byte[] binary = QueueRecordCodec.encode(item);
+
+    @Benchmark
+    public byte[] encodeText() {
+        return QueueRecordCodec.encodeText(item);
+    }
+
+    @Benchmark
+    public PaymentQueueItens decodeText() {
+        return QueueRecordCodec.decode(text);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return QueueRecordCodec.encode(item);
+    }
+
+    @Benchmark
+    public PaymentQueueItens decodeBinary() {
+        return QueueRecordCodec.decode(binary);
+    }
+}
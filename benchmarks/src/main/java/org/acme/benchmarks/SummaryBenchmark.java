@@ -0,0 +1,69 @@
+package org.acme.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.entity.PaymentTotals;
+import org.acme.entity.PaymentsSummaryResponse;
+import org.acme.repository.redis.codec.BinaryPaymentCodec;
+import org.acme.repository.redis.codec.JsonPaymentCodec;
+import org.acme.repository.redis.codec.PaymentCodec;
+import org.acme.repository.redis.dbo.PaymentDBO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing the members a summary range returns from the ledger, which is what GET /payments-summary does
+ * after ZRANGEBYSCORE when aggregation is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SummaryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    @Param({"json", "binary"})
+    public String codec;
+
+    private PaymentCodec paymentCodec;
+    private byte[][] members;
+
+    @Setup
+    public void setup() {
+        paymentCodec = "binary".equals(codec) ? new BinaryPaymentCodec() : new JsonPaymentCodec(new ObjectMapper());
+        members = new byte[entries][];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < entries; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 100_000), 2);
+            String processor = random.nextInt(4) == 0 ? "fallback" : "default";
+            members[i] = paymentCodec.encode(new PaymentDBO(UUID.randomUUID(), amount, processor));
+        }
+    }
+
+    @Benchmark
+    public PaymentsSummaryResponse summarize() {
+        PaymentTotals totals = new PaymentTotals();
+        for (byte[] member : members) {
+            paymentCodec.accumulate(member, totals);
+        }
+        return totals.toResponse();
+    }
+}
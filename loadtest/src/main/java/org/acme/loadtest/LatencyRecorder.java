@@ -0,0 +1,28 @@
+package org.acme.loadtest;
+
+import java.util.Arrays;
+
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 16];
+    private int size;
+
+    synchronized void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size << 1);
+        }
+        samples[size++] = nanos;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    synchronized double percentileMillis(double percentile) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile / 100.0 * size) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
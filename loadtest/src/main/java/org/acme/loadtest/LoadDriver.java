@@ -0,0 +1,133 @@
+package org.acme.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays POST /payments traffic at the recorded offsets. Traffic files are JSON lines such as
+ * {@code {"offsetMs": 120, "correlationId": "...", "amount": 19.90}}; correlationId may be omitted.
+ */
+final class LoadDriver {
+
+    record Request(long offsetMs, String correlationId, String amount) { }
+
+    private static final Pattern OFFSET = Pattern.compile("\"offsetMs\"\\s*:\\s*(\\d+)");
+    private static final Pattern CORRELATION_ID = Pattern.compile("\"correlationId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern AMOUNT = Pattern.compile("\"amount\"\\s*:\\s*([-0-9.eE]+)");
+
+    private final URI paymentsUri;
+    private final List<Request> requests;
+    private final HttpClient client;
+    private final Map<String, Long> sentAtNanos = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> accepted = new ConcurrentHashMap<>();
+    private final LatencyRecorder ingestLatency = new LatencyRecorder();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    LoadDriver(String target, List<Request> requests) {
+        this.paymentsUri = URI.create(target + "/payments");
+        this.requests = requests;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    static List<Request> fromFile(Path file) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank()) continue;
+
+            Matcher offset = OFFSET.matcher(line);
+            Matcher correlationId = CORRELATION_ID.matcher(line);
+            Matcher amount = AMOUNT.matcher(line);
+            requests.add(new Request(
+                    offset.find() ? Long.parseLong(offset.group(1)) : 0,
+                    correlationId.find() ? correlationId.group(1) : UUID.randomUUID().toString(),
+                    amount.find() ? amount.group(1) : "19.90"));
+        }
+        requests.sort((a, b) -> Long.compare(a.offsetMs(), b.offsetMs()));
+        return requests;
+    }
+
+    static List<Request> generate(int ratePerSecond, int durationSeconds, String amount) {
+        int total = ratePerSecond * durationSeconds;
+        List<Request> requests = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            requests.add(new Request(i * 1000L / ratePerSecond, UUID.randomUUID().toString(), amount));
+        }
+        return requests;
+    }
+
+    void run() {
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Request request : requests) {
+                long wait = start + request.offsetMs() * 1_000_000 - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                executor.submit(() -> send(request));
+            }
+        }
+    }
+
+    Map<String, Long> sentAtNanos() {
+        return sentAtNanos;
+    }
+
+    Map<String, BigDecimal> accepted() {
+        return accepted;
+    }
+
+    LatencyRecorder ingestLatency() {
+        return ingestLatency;
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    private void send(Request request) {
+        String body = "{\"correlationId\":\"" + request.correlationId() + "\",\"amount\":" + request.amount() + "}";
+        HttpRequest httpRequest = HttpRequest.newBuilder(paymentsUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long sentAt = System.nanoTime();
+        sentAtNanos.put(request.correlationId(), sentAt);
+        try {
+            HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+            ingestLatency.record(System.nanoTime() - sentAt);
+            if (response.statusCode() / 100 == 2) {
+                accepted.put(request.correlationId(), new BigDecimal(request.amount()));
+            } else {
+                rejected.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
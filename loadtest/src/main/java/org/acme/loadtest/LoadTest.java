@@ -0,0 +1,124 @@
+package org.acme.loadtest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the stub processors, replays traffic against the API, waits for the queue to drain and prints a
+ * report. The application under test must point its processor URLs at the stub ports.
+ */
+public class LoadTest {
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern SUMMARY = Pattern.compile(
+            "\"(default|fallback)\"\\s*:\\s*\\{\\s*\"totalRequests\"\\s*:\\s*(\\d+)\\s*,\\s*\"totalAmount\"\\s*:\\s*([-0-9.eE]+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String target = options.getOrDefault("target", "http://localhost:9999");
+        long startedAtMs = System.currentTimeMillis();
+
+        StubProcessor defaultProcessor = new StubProcessor("default",
+                Integer.parseInt(options.getOrDefault("default-port", "8001")),
+                ProcessorScenario.parse(options.get("default-scenario")), startedAtMs);
+        StubProcessor fallbackProcessor = new StubProcessor("fallback",
+                Integer.parseInt(options.getOrDefault("fallback-port", "8002")),
+                ProcessorScenario.parse(options.get("fallback-scenario")), startedAtMs);
+        defaultProcessor.start();
+        fallbackProcessor.start();
+
+        List<LoadDriver.Request> requests = options.containsKey("traffic")
+                ? LoadDriver.fromFile(Path.of(options.get("traffic")))
+                : LoadDriver.generate(
+                        Integer.parseInt(options.getOrDefault("rate", "200")),
+                        Integer.parseInt(options.getOrDefault("duration", "30")),
+                        options.getOrDefault("amount", "19.90"));
+
+        QueueSampler sampler = null;
+        if (options.containsKey("redis")) {
+            String[] hostPort = options.get("redis").split(":");
+            sampler = new QueueSampler(hostPort[0], hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : 6379,
+                    Integer.parseInt(options.getOrDefault("queue-shards", "1")),
+                    Long.parseLong(options.getOrDefault("sample-ms", "500")), startedAtMs);
+            Thread.ofVirtual().start(sampler);
+        }
+
+        LoadDriver driver = new LoadDriver(target, requests);
+        driver.run();
+        awaitDrain(driver, List.of(defaultProcessor, fallbackProcessor),
+                Long.parseLong(options.getOrDefault("drain-seconds", "30")) * 1000);
+
+        if (sampler != null) sampler.stop();
+        String summary = fetchSummary(target, startedAtMs, System.currentTimeMillis());
+
+        Report.print(driver, defaultProcessor, fallbackProcessor, sampler, summary == null ? Map.of() : parseSummary(summary));
+
+        defaultProcessor.stop();
+        fallbackProcessor.stop();
+    }
+
+    private static void awaitDrain(LoadDriver driver, List<StubProcessor> processors, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            long settled = driver.accepted().keySet().stream()
+                    .filter(id -> processors.stream().anyMatch(p -> p.received().containsKey(id)))
+                    .count();
+            if (settled >= driver.accepted().size()) {
+                // one more beat so the last settles reach the ledger after the processor answered
+                Thread.sleep(1000);
+                return;
+            }
+            Thread.sleep(250);
+        }
+    }
+
+    /** Only this run's window is asked for, so payments left over from earlier runs do not skew the comparison. */
+    private static String fetchSummary(String target, long fromMs, long toMs) {
+        String uri = target + "/payments-summary?from=" + TIMESTAMP.format(Instant.ofEpochMilli(fromMs))
+                + "&to=" + TIMESTAMP.format(Instant.ofEpochMilli(toMs));
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? response.body() : null;
+        } catch (Exception e) {
+            System.err.println("Could not fetch summary: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Report.Totals> parseSummary(String body) {
+        Map<String, Report.Totals> totals = new HashMap<>();
+        Matcher matcher = SUMMARY.matcher(body);
+        while (matcher.find()) {
+            totals.put(matcher.group(1), new Report.Totals(Long.parseLong(matcher.group(2)),
+                    new BigDecimal(matcher.group(3)).movePointRight(2).longValueExact()));
+        }
+        return totals;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            options.put(key, i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true");
+        }
+        return options;
+    }
+}
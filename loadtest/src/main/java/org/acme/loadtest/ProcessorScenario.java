@@ -0,0 +1,74 @@
+package org.acme.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timeline for a stub processor, e.g. {@code 0s:latency=10;20s:failing=true;35s:failing=false,latency=80,rate=300}.
+ * Each phase starts at its offset and inherits whatever the previous phase set. {@code rate} caps accepted
+ * payments per second (0 = unlimited); excess requests get 429.
+ */
+final class ProcessorScenario {
+
+    record Phase(long startMs, int latencyMs, boolean failing, int ratePerSecond) { }
+
+    private final List<Phase> phases;
+
+    private ProcessorScenario(List<Phase> phases) {
+        this.phases = phases;
+    }
+
+    static ProcessorScenario parse(String spec) {
+        List<Phase> phases = new ArrayList<>();
+        Phase current = new Phase(0, 0, false, 0);
+        phases.add(current);
+
+        if (spec == null || spec.isBlank()) {
+            return new ProcessorScenario(phases);
+        }
+
+        for (String part : spec.split(";")) {
+            String[] offsetAndSettings = part.trim().split(":", 2);
+            long startMs = parseSeconds(offsetAndSettings[0]) * 1000;
+            int latencyMs = current.latencyMs();
+            boolean failing = current.failing();
+            int rate = current.ratePerSecond();
+
+            if (offsetAndSettings.length > 1) {
+                for (String setting : offsetAndSettings[1].split(",")) {
+                    String[] keyValue = setting.trim().split("=", 2);
+                    switch (keyValue[0]) {
+                        case "latency" -> latencyMs = Integer.parseInt(keyValue[1]);
+                        case "failing" -> failing = Boolean.parseBoolean(keyValue[1]);
+                        case "rate" -> rate = Integer.parseInt(keyValue[1]);
+                        default -> throw new IllegalArgumentException("Unknown scenario setting: " + keyValue[0]);
+                    }
+                }
+            }
+
+            current = new Phase(startMs, latencyMs, failing, rate);
+            if (startMs == 0) {
+                phases.set(0, current);
+            } else {
+                phases.add(current);
+            }
+        }
+
+        phases.sort((a, b) -> Long.compare(a.startMs(), b.startMs()));
+        return new ProcessorScenario(phases);
+    }
+
+    Phase at(long elapsedMs) {
+        Phase phase = phases.get(0);
+        for (Phase candidate : phases) {
+            if (candidate.startMs() > elapsedMs) break;
+            phase = candidate;
+        }
+        return phase;
+    }
+
+    private static long parseSeconds(String offset) {
+        String value = offset.endsWith("s") ? offset.substring(0, offset.length() - 1) : offset;
+        return Long.parseLong(value);
+    }
+}
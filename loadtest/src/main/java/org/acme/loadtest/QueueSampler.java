@@ -0,0 +1,85 @@
+package org.acme.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Samples LLEN of the payment queue over a plain RESP connection, so the harness needs no Redis client.
+ * With a sharded queue the depth is the sum over every shard.
+ */
+final class QueueSampler implements Runnable {
+
+    record Sample(long elapsedMs, long depth) { }
+
+    private static final String QUEUE = "processing_payment_queue";
+
+    private final String host;
+    private final int port;
+    private final long intervalMs;
+    private final long startedAtMs;
+    private final int shards;
+    private final List<Sample> samples = new ArrayList<>();
+    private volatile boolean running = true;
+
+    QueueSampler(String host, int port, int shards, long intervalMs, long startedAtMs) {
+        this.host = host;
+        this.port = port;
+        this.intervalMs = intervalMs;
+        this.startedAtMs = startedAtMs;
+        this.shards = Math.max(1, shards);
+    }
+
+    @Override
+    public void run() {
+        try (Socket socket = new Socket(host, port);
+             OutputStream out = socket.getOutputStream();
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+            StringBuilder commands = new StringBuilder();
+            for (int shard = 0; shard < shards; shard++) {
+                String key = shard == 0 ? QUEUE : QUEUE + ":" + shard;
+                commands.append("*2\r\n$4\r\nLLEN\r\n$").append(key.length()).append("\r\n").append(key).append("\r\n");
+            }
+            byte[] command = commands.toString().getBytes(StandardCharsets.US_ASCII);
+            while (running) {
+                out.write(command);
+                out.flush();
+                long depth = 0;
+                boolean complete = true;
+                for (int shard = 0; shard < shards; shard++) {
+                    String reply = in.readLine();
+                    if (reply != null && reply.startsWith(":")) {
+                        depth += Long.parseLong(reply.substring(1));
+                    } else {
+                        complete = false;
+                    }
+                }
+                if (complete) {
+                    synchronized (samples) {
+                        samples.add(new Sample(System.currentTimeMillis() - startedAtMs, depth));
+                    }
+                }
+                Thread.sleep(intervalMs);
+            }
+        } catch (IOException e) {
+            System.err.println("Queue sampling stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    List<Sample> samples() {
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.acme.loadtest;
+
+import java.util.Map;
+
+final class Report {
+
+    record Totals(long count, long cents) { }
+
+    private Report() {
+    }
+
+    static void print(LoadDriver driver, StubProcessor defaultProcessor, StubProcessor fallbackProcessor,
+                      QueueSampler sampler, Map<String, Totals> summary) {
+        LatencyRecorder settleLatency = new LatencyRecorder();
+        for (StubProcessor processor : new StubProcessor[]{defaultProcessor, fallbackProcessor}) {
+            processor.received().forEach((correlationId, received) -> {
+                Long sentAt = driver.sentAtNanos().get(correlationId);
+                if (sentAt != null) settleLatency.record(received.receivedAtNanos() - sentAt);
+            });
+        }
+
+        System.out.println("== ingest (POST /payments)");
+        System.out.printf("requests=%d accepted=%d rejected=%d errors=%d%n",
+                driver.ingestLatency().count() + driver.errors(), driver.accepted().size(), driver.rejected(), driver.errors());
+        System.out.printf("p50=%.2fms p99=%.2fms max=%.2fms%n",
+                driver.ingestLatency().percentileMillis(50),
+                driver.ingestLatency().percentileMillis(99),
+                driver.ingestLatency().percentileMillis(100));
+
+        System.out.println("== end to end (POST sent -> processor accepted)");
+        System.out.printf("settled=%d p50=%.2fms p99=%.2fms max=%.2fms%n",
+                settleLatency.count(),
+                settleLatency.percentileMillis(50),
+                settleLatency.percentileMillis(99),
+                settleLatency.percentileMillis(100));
+
+        System.out.println("== processor mix");
+        long total = defaultProcessor.received().size() + fallbackProcessor.received().size();
+        for (StubProcessor processor : new StubProcessor[]{defaultProcessor, fallbackProcessor}) {
+            long count = processor.received().size();
+            System.out.printf("%s: payments=%d (%.1f%%) amount=%.2f rate-limited=%d%n",
+                    processor.name(), count, total == 0 ? 0.0 : count * 100.0 / total,
+                    processor.totalCents() / 100.0, processor.rejected());
+        }
+
+        if (sampler != null) {
+            System.out.println("== queue depth");
+            long peak = 0;
+            for (QueueSampler.Sample sample : sampler.samples()) {
+                peak = Math.max(peak, sample.depth());
+                System.out.printf("t=%6.1fs depth=%d%n", sample.elapsedMs() / 1000.0, sample.depth());
+            }
+            System.out.printf("peak=%d%n", peak);
+        }
+
+        System.out.println("== summary consistency (GET /payments-summary vs processors)");
+        if (summary.isEmpty()) {
+            System.out.println("summary unavailable");
+            return;
+        }
+
+        boolean consistent = true;
+        for (StubProcessor processor : new StubProcessor[]{defaultProcessor, fallbackProcessor}) {
+            Totals reported = summary.getOrDefault(processor.name(), new Totals(0, 0));
+            long count = processor.received().size();
+            long cents = processor.totalCents();
+            boolean matches = reported.count() == count && reported.cents() == cents;
+            consistent &= matches;
+            System.out.printf("%s: api=%d/%.2f processor=%d/%.2f %s%n", processor.name(),
+                    reported.count(), reported.cents() / 100.0, count, cents / 100.0, matches ? "OK" : "MISMATCH");
+        }
+        System.out.println(consistent ? "consistent" : "INCONSISTENT");
+    }
+}
@@ -0,0 +1,180 @@
+package org.acme.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for a payment processor: POST /payments, GET /payments/service-health (one call per 5s, 429
+ * otherwise, like the real one) and GET /payments/{id}. Behaviour follows its {@link ProcessorScenario}.
+ */
+final class StubProcessor {
+
+    record Received(long cents, String requestedAt, long receivedAtNanos) { }
+
+    private static final Pattern CORRELATION_ID = Pattern.compile("\"correlationId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern AMOUNT = Pattern.compile("\"amount\"\\s*:\\s*([-0-9.eE]+)");
+    private static final Pattern REQUESTED_AT = Pattern.compile("\"requestedAt\"\\s*:\\s*\"([^\"]+)\"");
+    private static final long HEALTH_INTERVAL_MS = 5000;
+
+    private final String name;
+    private final int port;
+    private final ProcessorScenario scenario;
+    private final long startedAtMs;
+    private final Map<String, Received> received = new ConcurrentHashMap<>();
+    private final AtomicLong lastHealthCheck = new AtomicLong();
+    private final AtomicLong rateWindow = new AtomicLong();
+    private final AtomicLong rateCount = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private HttpServer server;
+
+    StubProcessor(String name, int port, ProcessorScenario scenario, long startedAtMs) {
+        this.name = name;
+        this.port = port;
+        this.scenario = scenario;
+        this.startedAtMs = startedAtMs;
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/payments", this::handle);
+        server.start();
+    }
+
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    String name() {
+        return name;
+    }
+
+    Map<String, Received> received() {
+        return received;
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    long totalCents() {
+        return received.values().stream().mapToLong(Received::cents).sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            ProcessorScenario.Phase phase = scenario.at(System.currentTimeMillis() - startedAtMs);
+
+            if ("GET".equals(method) && path.equals("/payments/service-health")) {
+                health(exchange, phase);
+            } else if ("GET".equals(method) && path.startsWith("/payments/")) {
+                lookup(exchange, path.substring("/payments/".length()));
+            } else if ("POST".equals(method) && path.equals("/payments")) {
+                pay(exchange, phase);
+            } else {
+                respond(exchange, 404, "");
+            }
+        }
+    }
+
+    private void health(HttpExchange exchange, ProcessorScenario.Phase phase) throws IOException {
+        long now = System.currentTimeMillis();
+        long previous = lastHealthCheck.get();
+        if (now - previous < HEALTH_INTERVAL_MS || !lastHealthCheck.compareAndSet(previous, now)) {
+            respond(exchange, 429, "");
+            return;
+        }
+
+        respond(exchange, 200, "{\"failing\":" + phase.failing() + ",\"minResponseTime\":" + phase.latencyMs() + "}");
+    }
+
+    private void lookup(HttpExchange exchange, String correlationId) throws IOException {
+        Received payment = received.get(correlationId);
+        if (payment == null) {
+            respond(exchange, 404, "");
+            return;
+        }
+
+        respond(exchange, 200, "{\"correlationId\":\"" + correlationId + "\",\"amount\":"
+                + BigDecimal.valueOf(payment.cents(), 2) + ",\"requestedAt\":\"" + payment.requestedAt() + "\"}");
+    }
+
+    private void pay(HttpExchange exchange, ProcessorScenario.Phase phase) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        sleep(phase.latencyMs());
+
+        if (phase.failing()) {
+            respond(exchange, 500, "");
+            return;
+        }
+
+        if (!admit(phase.ratePerSecond())) {
+            rejected.incrementAndGet();
+            respond(exchange, 429, "");
+            return;
+        }
+
+        Matcher correlationId = CORRELATION_ID.matcher(body);
+        Matcher amount = AMOUNT.matcher(body);
+        Matcher requestedAt = REQUESTED_AT.matcher(body);
+        if (!correlationId.find() || !amount.find() || !requestedAt.find()) {
+            respond(exchange, 400, "");
+            return;
+        }
+
+        long cents = new BigDecimal(amount.group(1)).movePointRight(2).longValueExact();
+        Received previous = received.putIfAbsent(correlationId.group(1),
+                new Received(cents, requestedAt.group(1), System.nanoTime()));
+        if (previous != null) {
+            respond(exchange, 422, "");
+            return;
+        }
+
+        respond(exchange, 200, "{\"message\":\"payment processed successfully\"}");
+    }
+
+    private boolean admit(int ratePerSecond) {
+        if (ratePerSecond <= 0) return true;
+
+        long second = System.currentTimeMillis() / 1000;
+        long window = rateWindow.get();
+        if (window != second && rateWindow.compareAndSet(window, second)) {
+            rateCount.set(0);
+        }
+        return rateCount.incrementAndGet() <= ratePerSecond;
+    }
+
+    private static void sleep(int millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
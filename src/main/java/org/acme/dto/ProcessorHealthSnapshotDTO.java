@@ -0,0 +1,11 @@
+package org.acme.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public record ProcessorHealthSnapshotDTO(HealthCheckResponseDTO defaultHealth, HealthCheckResponseDTO fallbackHealth, long checkedAt, long sequence) {
+
+    public ProcessorHealthSnapshotDTO withSequence(long sequence) {
+        return new ProcessorHealthSnapshotDTO(defaultHealth, fallbackHealth, checkedAt, sequence);
+    }
+}
@@ -1,9 +1,15 @@
 package org.acme.entity;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.acme.utils.AmountUtils;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @RegisterForReflection
-public record PaymentQueueItens (UUID correlationId, BigDecimal amount) { }
+public record PaymentQueueItens (UUID correlationId, long amountCents) {
+
+    public BigDecimal amount() {
+        return AmountUtils.fromCents(amountCents);
+    }
+}
@@ -0,0 +1,38 @@
+package org.acme.entity;
+
+import org.acme.utils.AmountUtils;
+
+public final class PaymentTotals {
+
+    private static final String DEFAULT = "default";
+    private static final String FALLBACK = "fallback";
+
+    private long defaultCount;
+    private long defaultCents;
+    private long fallbackCount;
+    private long fallbackCents;
+
+    public void add(String processor, long count, long cents) {
+        if (DEFAULT.equals(processor)) {
+            defaultCount += count;
+            defaultCents += cents;
+        } else if (FALLBACK.equals(processor)) {
+            fallbackCount += count;
+            fallbackCents += cents;
+        }
+    }
+
+    public void add(PaymentTotals other) {
+        defaultCount += other.defaultCount;
+        defaultCents += other.defaultCents;
+        fallbackCount += other.fallbackCount;
+        fallbackCents += other.fallbackCents;
+    }
+
+    public PaymentsSummaryResponse toResponse() {
+        return new PaymentsSummaryResponse(
+                new ProcessorSummary((int) defaultCount, AmountUtils.fromCents(defaultCents)),
+                new ProcessorSummary((int) fallbackCount, AmountUtils.fromCents(fallbackCents))
+        );
+    }
+}
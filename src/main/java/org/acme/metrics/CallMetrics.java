@@ -0,0 +1,60 @@
+package org.acme.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, status codes, timeouts and errors for calls to one downstream. Status counters are created on
+ * first sight of a code and looked up by index afterwards, so the hot path does not build metric names.
+ */
+public final class CallMetrics {
+
+    private final MetricsRegistry metricsRegistry;
+    private final String prefix;
+    private final LatencyHistogram latency;
+    private final LongAdder timeouts;
+    private final LongAdder errors;
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+
+    CallMetrics(MetricsRegistry metricsRegistry, String prefix) {
+        this.metricsRegistry = metricsRegistry;
+        this.prefix = prefix;
+        this.latency = metricsRegistry.histogram(prefix + ".latency");
+        this.timeouts = metricsRegistry.counter(prefix + ".timeouts");
+        this.errors = metricsRegistry.counter(prefix + ".errors");
+    }
+
+    public void recordResponse(int status, long startNanos) {
+        latency.recordSince(startNanos);
+        if (status < 0 || status >= statuses.length()) {
+            return;
+        }
+
+        LongAdder counter = statuses.get(status);
+        if (counter == null) {
+            counter = metricsRegistry.counter(prefix + ".status." + status);
+            statuses.compareAndSet(status, null, counter);
+        }
+        counter.increment();
+    }
+
+    public void recordFailure(Throwable failure, long startNanos) {
+        latency.recordSince(startNanos);
+        if (isTimeout(failure)) {
+            timeouts.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    private static boolean isTimeout(Throwable failure) {
+        // client timeouts surface as ProcessingException wrapping JDK, Netty or Vert.x timeout types
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause.getClass().getSimpleName().contains("Timeout")) {
+                return true;
+            }
+            if (cause.getCause() == cause) break;
+        }
+        return false;
+    }
+}
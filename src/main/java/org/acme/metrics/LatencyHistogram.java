@@ -0,0 +1,85 @@
+package org.acme.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram in the spirit of HdrHistogram: each power of two is split into 16 linear
+ * sub-buckets (about 6% relative error), counts live in one preallocated array and recording never
+ * allocates. Values are nanoseconds; the snapshot reports microseconds.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("mean-us", total == 0 ? 0 : sum.sum() / total / 1000);
+
+        long maxValue = max.get();
+        int bucket = 0;
+        long seen = 0;
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            long rank = (long) Math.ceil(PERCENTILES[p] / 100 * total);
+            while (bucket < BUCKETS - 1 && seen + copy[bucket] < rank) {
+                seen += copy[bucket++];
+            }
+            snapshot.put(PERCENTILE_NAMES[p] + "-us", total == 0 ? 0 : Math.min(upperBound(bucket), maxValue) / 1000);
+        }
+
+        snapshot.put("max-us", maxValue / 1000);
+        return snapshot;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS | index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,47 @@
+package org.acme.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@ApplicationScoped
+public class MetricsRegistry {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public void gauge(String name, Supplier<Number> value) {
+        gauges.put(name, value);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public CallMetrics calls(String prefix) {
+        return new CallMetrics(this, prefix);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> {
+            try {
+                snapshot.put(name, gauge.get());
+            } catch (RuntimeException e) {
+                snapshot.put(name, null);
+            }
+        });
+        histograms.forEach((name, histogram) -> snapshot.put(name, histogram.snapshot()));
+        return snapshot;
+    }
+}
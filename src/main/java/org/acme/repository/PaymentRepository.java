@@ -0,0 +1,62 @@
+package org.acme.repository;
+
+import io.smallrye.mutiny.Uni;
+import org.acme.entity.Payment;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.entity.PaymentTotals;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pending-payment queue, retry schedule and settled-payment ledger. Backed by Redis when API and workers
+ * run as separate nodes, or in-process when service.type=embedded.
+ */
+public interface PaymentRepository {
+
+    byte[] encodeQueueItem(PaymentQueueItens payment);
+
+    void enqueue(PaymentQueueItens payment);
+
+    void enqueueEncoded(List<byte[]> paymentData);
+
+    Uni<Void> enqueueAsync(PaymentQueueItens payment);
+
+    PaymentQueueItens dequeue();
+
+    List<PaymentQueueItens> dequeueBatch(int maxItems);
+
+    long queueDepth();
+
+    long scheduleRetry(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs);
+
+    Uni<Void> scheduleRetryAsync(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs);
+
+    int promoteDueRetries(int maxItems);
+
+    String getPaymentState(String correlationId);
+
+    void markInFlight(String correlationId, String processorName);
+
+    Uni<Void> markInFlightAsync(String correlationId, String processorName);
+
+    PaymentTotals getTotals(Long from, Long to);
+
+    PaymentTotals getAggregatedTotals(Long from, Long to);
+
+    /**
+     * Bumped whenever a payment is settled with a requestedAt older than payment-summary.stable-lag-ms, i.e.
+     * into a range that summary caches already treat as final.
+     */
+    long getLedgerEpoch();
+
+    void savePayment(Payment payment, String processorName);
+
+    void savePayments(Map<String, List<Payment>> paymentsByProcessor);
+
+    Uni<Void> savePaymentsAsync(Map<String, List<Payment>> paymentsByProcessor);
+
+    boolean isConnected();
+
+    void closeClient();
+}
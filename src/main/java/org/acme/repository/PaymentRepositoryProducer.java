@@ -0,0 +1,23 @@
+package org.acme.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.acme.repository.embedded.EmbeddedRepository;
+import org.acme.repository.redis.RedisRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+@ApplicationScoped
+public class PaymentRepositoryProducer {
+
+    @Produces
+    @Singleton
+    PaymentRepository paymentRepository(
+            @ConfigProperty(name = "service.type") String serviceType,
+            Instance<RedisRepository> redisRepository,
+            Instance<EmbeddedRepository> embeddedRepository
+    ) {
+        return "embedded".equals(serviceType) ? embeddedRepository.get() : redisRepository.get();
+    }
+}
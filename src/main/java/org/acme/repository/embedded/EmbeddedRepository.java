@@ -0,0 +1,263 @@
+package org.acme.repository.embedded;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import org.acme.entity.Payment;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.entity.PaymentTotals;
+import org.acme.repository.PaymentRepository;
+import org.acme.repository.redis.codec.QueueRecordCodec;
+import org.acme.utils.AmountUtils;
+import org.acme.utils.DateUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node backend for service.type=embedded: API and workers share the queue in process. Settled
+ * payments go to a memory-mapped ledger under payment-ledger.path when set, otherwise to the heap.
+ * Like the payment_state hash in Redis, settled ids are remembered for payment-dedup.state-ttl-ms, and an
+ * in-flight marker is dropped once its payment settles. Retry attempt counts expire the same way, so one
+ * left by a payment that never settles here, such as a dropped duplicate, does not stay forever.
+ */
+@ApplicationScoped
+@Typed(EmbeddedRepository.class)
+public class EmbeddedRepository implements PaymentRepository {
+
+    private static final String SETTLED = "settled";
+    private static final String DEFAULT = "default";
+
+    private final LinkedTransferQueue<PaymentQueueItens> queue = new LinkedTransferQueue<>();
+    private final DelayQueue<RetryItem> retryQueue = new DelayQueue<>();
+    private final Map<UUID, Attempts> retryAttempts = new ConcurrentHashMap<>();
+    private final AtomicLong nextAttemptsSweepNanos = new AtomicLong(System.nanoTime());
+    private final Map<UUID, String> inFlight = new ConcurrentHashMap<>();
+    private final SettledIds settled;
+    private final AtomicLong ledgerEpoch = new AtomicLong();
+    private final PaymentLedger ledger;
+    private final long stableLagMs;
+    private final long attemptsTtlMs;
+
+    public EmbeddedRepository(
+            @ConfigProperty(name = "payment-ledger.path") Optional<String> ledgerPath,
+            @ConfigProperty(name = "payment-ledger.segment-mb") long segmentMb,
+            @ConfigProperty(name = "payment-summary.stable-lag-ms") long stableLagMs,
+            @ConfigProperty(name = "payment-dedup.state-ttl-ms") long stateTtlMs
+    ) throws IOException {
+        this.stableLagMs = stableLagMs;
+        this.attemptsTtlMs = Math.max(1, stateTtlMs);
+        this.settled = new SettledIds(stateTtlMs);
+        this.ledger = ledgerPath.isPresent()
+                ? new MappedPaymentLedger(Path.of(ledgerPath.get()), segmentMb << 20)
+                : new InMemoryPaymentLedger();
+        // only payments recent enough to still be in SettledIds are loaded, not the whole history
+        this.ledger.forEachCorrelationId(System.currentTimeMillis() - stateTtlMs, settled::add);
+    }
+
+    @PreDestroy
+    void closeLedger() {
+        ledger.close();
+    }
+
+    @Override
+    public byte[] encodeQueueItem(PaymentQueueItens payment) {
+        return QueueRecordCodec.encode(payment);
+    }
+
+    @Override
+    public void enqueue(PaymentQueueItens payment) {
+        queue.offer(payment);
+    }
+
+    @Override
+    public void enqueueEncoded(List<byte[]> paymentData) {
+        for (byte[] value : paymentData) {
+            queue.offer(QueueRecordCodec.decode(value));
+        }
+    }
+
+    @Override
+    public Uni<Void> enqueueAsync(PaymentQueueItens payment) {
+        return Uni.createFrom().voidItem().invoke(() -> enqueue(payment));
+    }
+
+    @Override
+    public PaymentQueueItens dequeue() {
+        try {
+            return queue.poll(1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public List<PaymentQueueItens> dequeueBatch(int maxItems) {
+        List<PaymentQueueItens> items = new ArrayList<>(maxItems);
+        PaymentQueueItens item;
+        while (items.size() < maxItems && (item = queue.poll()) != null) {
+            items.add(item);
+        }
+
+        if (items.isEmpty()) {
+            item = dequeue();
+            return item == null ? List.of() : List.of(item);
+        }
+        return items;
+    }
+
+    @Override
+    public long queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public long scheduleRetry(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs) {
+        long now = System.nanoTime();
+        long expiresAt = now + TimeUnit.MILLISECONDS.toNanos(Math.max(attemptsTtlMs, 2 * maxDelayMs));
+        int attempt = retryAttempts.compute(payment.correlationId(), (id, current) -> new Attempts(
+                current == null || current.isExpired(now) ? 1 : current.count() + 1, expiresAt)).count();
+        double delay = Math.min(maxDelayMs, baseDelayMs * Math.pow(2, attempt - 1));
+        delay = delay / 2 + delay / 2 * ThreadLocalRandom.current().nextDouble();
+        retryQueue.offer(new RetryItem(payment, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long) delay)));
+        return attempt;
+    }
+
+    @Override
+    public Uni<Void> scheduleRetryAsync(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs) {
+        return Uni.createFrom().voidItem().invoke(() -> scheduleRetry(payment, baseDelayMs, maxDelayMs));
+    }
+
+    @Override
+    public int promoteDueRetries(int maxItems) {
+        sweepExpiredAttempts();
+
+        int promoted = 0;
+        RetryItem item;
+        while (promoted < maxItems && (item = retryQueue.poll()) != null) {
+            queue.offer(item.payment());
+            promoted++;
+        }
+        return promoted;
+    }
+
+    @Override
+    public String getPaymentState(String correlationId) {
+        UUID id = UUID.fromString(correlationId);
+        return settled.contains(id) ? SETTLED : inFlight.get(id);
+    }
+
+    @Override
+    public void markInFlight(String correlationId, String processorName) {
+        inFlight.put(UUID.fromString(correlationId), processorName);
+    }
+
+    @Override
+    public Uni<Void> markInFlightAsync(String correlationId, String processorName) {
+        return Uni.createFrom().voidItem().invoke(() -> markInFlight(correlationId, processorName));
+    }
+
+    @Override
+    public PaymentTotals getTotals(Long from, Long to) {
+        PaymentTotals totals = new PaymentTotals();
+        ledger.sum(from, to, totals);
+        return totals;
+    }
+
+    @Override
+    public PaymentTotals getAggregatedTotals(Long from, Long to) {
+        return getTotals(from, to);
+    }
+
+    @Override
+    public long getLedgerEpoch() {
+        return ledgerEpoch.get();
+    }
+
+    @Override
+    public void savePayment(Payment payment, String processorName) {
+        UUID correlationId = UUID.fromString(payment.correlationId());
+        if (!settled.add(correlationId)) {
+            return;
+        }
+
+        inFlight.remove(correlationId);
+        long timestamp = DateUtils.parseIsoUtcToEpochMilli(payment.requestedAt());
+        retryAttempts.remove(correlationId);
+        ledger.append(
+                timestamp,
+                correlationId,
+                AmountUtils.toCents(payment.amount()),
+                DEFAULT.equals(processorName) ? PaymentLedger.DEFAULT_TAG : PaymentLedger.FALLBACK_TAG);
+
+        if (timestamp <= System.currentTimeMillis() - stableLagMs) {
+            ledgerEpoch.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void savePayments(Map<String, List<Payment>> paymentsByProcessor) {
+        paymentsByProcessor.forEach((processorName, payments) -> {
+            for (Payment payment : payments) {
+                savePayment(payment, processorName);
+            }
+        });
+    }
+
+    @Override
+    public Uni<Void> savePaymentsAsync(Map<String, List<Payment>> paymentsByProcessor) {
+        return Uni.createFrom().voidItem().invoke(() -> savePayments(paymentsByProcessor));
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public void closeClient() {
+    }
+
+    private void sweepExpiredAttempts() {
+        long now = System.nanoTime();
+        long next = nextAttemptsSweepNanos.get();
+        if (now - next >= 0 && nextAttemptsSweepNanos.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(attemptsTtlMs))) {
+            retryAttempts.values().removeIf(attempts -> attempts.isExpired(now));
+        }
+    }
+
+    private record Attempts(int count, long expiresAtNanos) {
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+
+    private record RetryItem(PaymentQueueItens payment, long dueAtNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtNanos, ((RetryItem) other).dueAtNanos);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.acme.repository.embedded;
+
+import org.acme.entity.PaymentTotals;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Settled payments kept ordered by requestedAt in parallel primitive arrays. Workers settle in roughly
+ * timestamp order, so an out-of-order append only shifts the last few slots.
+ */
+final class InMemoryPaymentLedger implements PaymentLedger {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private byte[] processors = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public void append(long timestamp, UUID correlationId, long amountCents, byte processor) {
+        lock.writeLock().lock();
+        try {
+            if (size == timestamps.length) {
+                int capacity = size << 1;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                processors = Arrays.copyOf(processors, capacity);
+            }
+
+            int index = size;
+            while (index > 0 && timestamps[index - 1] > timestamp) {
+                index--;
+            }
+
+            if (index < size) {
+                System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+                System.arraycopy(cents, index, cents, index + 1, size - index);
+                System.arraycopy(processors, index, processors, index + 1, size - index);
+            }
+
+            timestamps[index] = timestamp;
+            cents[index] = amountCents;
+            processors[index] = processor;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void sum(Long from, Long to, PaymentTotals totals) {
+        long defaultCount = 0;
+        long defaultCents = 0;
+        long fallbackCount = 0;
+        long fallbackCents = 0;
+
+        lock.readLock().lock();
+        try {
+            int start = from == null ? 0 : firstAtOrAfter(from);
+            int end = to == null ? size : firstAtOrAfter(to + 1);
+            for (int i = start; i < end; i++) {
+                if (processors[i] == DEFAULT_TAG) {
+                    defaultCount++;
+                    defaultCents += cents[i];
+                } else {
+                    fallbackCount++;
+                    fallbackCents += cents[i];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        totals.add("default", defaultCount, defaultCents);
+        totals.add("fallback", fallbackCount, fallbackCents);
+    }
+
+    private int firstAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
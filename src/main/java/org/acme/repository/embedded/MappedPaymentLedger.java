@@ -0,0 +1,264 @@
+package org.acme.repository.embedded;
+
+import org.acme.entity.PaymentTotals;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only ledger in preallocated, memory-mapped segment files of fixed-width records:
+ * requestedAt (8) | correlationId msb (8) | lsb (8) | cents (8) | processor tag (1) | padding (7).
+ * The tag is written last, so the first zero tag marks the end of the log on recovery.
+ * <p>
+ * A sparse index keeps, per block of records, the min and max timestamp, the running max over all earlier
+ * blocks and per-processor totals. Blocks fully inside a range are summed from the index, and only the
+ * edge blocks are scanned. Records arrive nearly but not strictly in time order, so the scan stops once a
+ * block starts later than {@code to} plus the largest lateness ever appended. The index is rebuilt from
+ * the segments on startup.
+ */
+final class MappedPaymentLedger implements PaymentLedger {
+
+    static final int RECORD_SIZE = 40;
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final int TAG_OFFSET = 32;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int recordsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long size;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long maxLateness;
+
+    private int blocks;
+    private long[] blockMin = new long[64];
+    private long[] blockMax = new long[64];
+    private long[] blockRunningMax = new long[64];
+    private long[] blockDefaultCount = new long[64];
+    private long[] blockDefaultCents = new long[64];
+    private long[] blockFallbackCount = new long[64];
+    private long[] blockFallbackCents = new long[64];
+
+    MappedPaymentLedger(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("a " + segmentBytes + "-byte segment cannot hold a " + RECORD_SIZE
+                    + "-byte record; payment-ledger.segment-mb must be at least 1");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.recordsPerSegment = (int) Math.min(Integer.MAX_VALUE / RECORD_SIZE, segmentBytes / RECORD_SIZE);
+        this.segmentBytes = (long) recordsPerSegment * RECORD_SIZE;
+        recover();
+    }
+
+    @Override
+    public void append(long timestamp, UUID correlationId, long cents, byte processor) {
+        lock.writeLock().lock();
+        try {
+            int segment = (int) (size / recordsPerSegment);
+            if (segment == segments.size()) {
+                segments.add(map(segment));
+            }
+
+            MappedByteBuffer buffer = segments.get(segment);
+            int offset = (int) (size % recordsPerSegment) * RECORD_SIZE;
+            buffer.putLong(offset, timestamp);
+            buffer.putLong(offset + 8, correlationId.getMostSignificantBits());
+            buffer.putLong(offset + 16, correlationId.getLeastSignificantBits());
+            buffer.putLong(offset + 24, cents);
+            buffer.put(offset + TAG_OFFSET, processor);
+
+            index(size++, timestamp, cents, processor);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void sum(Long from, Long to, PaymentTotals totals) {
+        long lower = from == null ? Long.MIN_VALUE : from;
+        long upper = to == null ? Long.MAX_VALUE : to;
+        long[] sums = new long[4];
+
+        lock.readLock().lock();
+        try {
+            long stopAfter = upper > Long.MAX_VALUE - maxLateness ? Long.MAX_VALUE : upper + maxLateness;
+            for (int block = firstBlockReaching(lower); block < blocks && blockMin[block] <= stopAfter; block++) {
+                if (blockMax[block] < lower || blockMin[block] > upper) {
+                    continue;
+                }
+
+                if (blockMin[block] >= lower && blockMax[block] <= upper) {
+                    sums[0] += blockDefaultCount[block];
+                    sums[1] += blockDefaultCents[block];
+                    sums[2] += blockFallbackCount[block];
+                    sums[3] += blockFallbackCents[block];
+                } else {
+                    scan(block, lower, upper, sums);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        totals.add("default", sums[0], sums[1]);
+        totals.add("fallback", sums[2], sums[3]);
+    }
+
+    @Override
+    public void forEachCorrelationId(long since, Consumer<UUID> action) {
+        lock.readLock().lock();
+        try {
+            for (long i = (long) firstBlockReaching(since) * BLOCK_SIZE; i < size; i++) {
+                MappedByteBuffer buffer = segments.get((int) (i / recordsPerSegment));
+                int offset = (int) (i % recordsPerSegment) * RECORD_SIZE;
+                if (buffer.getLong(offset) >= since) {
+                    action.accept(new UUID(buffer.getLong(offset + 8), buffer.getLong(offset + 16)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+            MappedByteBuffer buffer = map(segment);
+            segments.add(buffer);
+
+            int records = countRecords(buffer);
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                index(size++, buffer.getLong(offset), buffer.getLong(offset + 24), buffer.get(offset + TAG_OFFSET));
+            }
+
+            if (records < recordsPerSegment) {
+                break;
+            }
+        }
+    }
+
+    private int countRecords(MappedByteBuffer buffer) {
+        int low = 0;
+        int high = recordsPerSegment;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.get(mid * RECORD_SIZE + TAG_OFFSET) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void index(long record, long timestamp, long cents, byte processor) {
+        int block = (int) (record / BLOCK_SIZE);
+        if (block == blocks) {
+            if (blocks == blockMin.length) {
+                grow(blocks << 1);
+            }
+            blockMin[block] = Long.MAX_VALUE;
+            blockMax[block] = Long.MIN_VALUE;
+            blockRunningMax[block] = block == 0 ? Long.MIN_VALUE : blockRunningMax[block - 1];
+            blocks++;
+        }
+
+        blockMin[block] = Math.min(blockMin[block], timestamp);
+        blockMax[block] = Math.max(blockMax[block], timestamp);
+        blockRunningMax[block] = Math.max(blockRunningMax[block], timestamp);
+        if (processor == DEFAULT_TAG) {
+            blockDefaultCount[block]++;
+            blockDefaultCents[block] += cents;
+        } else {
+            blockFallbackCount[block]++;
+            blockFallbackCents[block] += cents;
+        }
+
+        if (timestamp < maxTimestamp) {
+            maxLateness = Math.max(maxLateness, maxTimestamp - timestamp);
+        }
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    private int firstBlockReaching(long timestamp) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockRunningMax[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void scan(int block, long lower, long upper, long[] sums) {
+        long end = Math.min(size, (long) (block + 1) * BLOCK_SIZE);
+        for (long i = (long) block * BLOCK_SIZE; i < end; i++) {
+            MappedByteBuffer buffer = segments.get((int) (i / recordsPerSegment));
+            int offset = (int) (i % recordsPerSegment) * RECORD_SIZE;
+            long timestamp = buffer.getLong(offset);
+            if (timestamp < lower || timestamp > upper) {
+                continue;
+            }
+
+            if (buffer.get(offset + TAG_OFFSET) == DEFAULT_TAG) {
+                sums[0]++;
+                sums[1] += buffer.getLong(offset + 24);
+            } else {
+                sums[2]++;
+                sums[3] += buffer.getLong(offset + 24);
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        blockMin = Arrays.copyOf(blockMin, capacity);
+        blockMax = Arrays.copyOf(blockMax, capacity);
+        blockRunningMax = Arrays.copyOf(blockRunningMax, capacity);
+        blockDefaultCount = Arrays.copyOf(blockDefaultCount, capacity);
+        blockDefaultCents = Arrays.copyOf(blockDefaultCents, capacity);
+        blockFallbackCount = Arrays.copyOf(blockFallbackCount, capacity);
+        blockFallbackCents = Arrays.copyOf(blockFallbackCents, capacity);
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("payments-%06d.ledger", segment));
+    }
+}
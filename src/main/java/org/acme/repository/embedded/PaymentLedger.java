@@ -0,0 +1,23 @@
+package org.acme.repository.embedded;
+
+import org.acme.entity.PaymentTotals;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+interface PaymentLedger {
+
+    byte DEFAULT_TAG = 1;
+    byte FALLBACK_TAG = 2;
+
+    void append(long timestamp, UUID correlationId, long cents, byte processor);
+
+    void sum(Long from, Long to, PaymentTotals totals);
+
+    /** Visits the correlation ids of records with a timestamp at or after {@code since}. */
+    default void forEachCorrelationId(long since, Consumer<UUID> action) {
+    }
+
+    default void close() {
+    }
+}
@@ -0,0 +1,118 @@
+package org.acme.repository.embedded;
+
+import java.util.UUID;
+
+/**
+ * Correlation ids of settled payments, each held for between ttl and twice ttl after it was added. Ids live
+ * as pairs of longs in open-addressing tables, one per generation; when the current table is ttl old it
+ * becomes the previous one and the older table is dropped, so memory follows recent traffic rather than
+ * every payment ever settled.
+ */
+final class SettledIds {
+
+    private static final int INITIAL_SLOTS = 1 << 10;
+
+    private final long ttlNanos;
+    private IdTable current = new IdTable();
+    private IdTable previous = new IdTable();
+    private long rotatedAt = System.nanoTime();
+
+    SettledIds(long ttlMs) {
+        this.ttlNanos = Math.max(1, ttlMs) * 1_000_000;
+    }
+
+    /** Returns false when the id is already present. */
+    synchronized boolean add(UUID id) {
+        rotate();
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        return !previous.contains(msb, lsb) && current.add(msb, lsb);
+    }
+
+    synchronized boolean contains(UUID id) {
+        rotate();
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        return current.contains(msb, lsb) || previous.contains(msb, lsb);
+    }
+
+    synchronized int size() {
+        return current.size + previous.size;
+    }
+
+    private void rotate() {
+        long now = System.nanoTime();
+        long elapsed = now - rotatedAt;
+        if (elapsed < ttlNanos) {
+            return;
+        }
+
+        previous = elapsed < 2 * ttlNanos ? current : new IdTable();
+        current = new IdTable();
+        rotatedAt = now;
+    }
+
+    /** Linear probing over (msb, lsb) pairs; the all-zero pair marks a free slot, so the nil UUID is kept aside. */
+    private static final class IdTable {
+
+        private long[] pairs = new long[2 * INITIAL_SLOTS];
+        private int size;
+        private boolean hasNil;
+
+        private boolean contains(long msb, long lsb) {
+            if ((msb | lsb) == 0) return hasNil;
+
+            int mask = pairs.length / 2 - 1;
+            for (int slot = slot(msb, lsb, mask); ; slot = (slot + 1) & mask) {
+                long m = pairs[2 * slot];
+                long l = pairs[2 * slot + 1];
+                if (m == msb && l == lsb) return true;
+                if ((m | l) == 0) return false;
+            }
+        }
+
+        private boolean add(long msb, long lsb) {
+            if ((msb | lsb) == 0) {
+                if (hasNil) return false;
+                hasNil = true;
+                size++;
+                return true;
+            }
+
+            if ((size + 1) * 4 > pairs.length) {
+                resize();
+            }
+            if (!insert(pairs, msb, lsb)) return false;
+            size++;
+            return true;
+        }
+
+        private void resize() {
+            long[] old = pairs;
+            pairs = new long[old.length * 2];
+            for (int i = 0; i < old.length; i += 2) {
+                if ((old[i] | old[i + 1]) != 0) {
+                    insert(pairs, old[i], old[i + 1]);
+                }
+            }
+        }
+
+        private static boolean insert(long[] pairs, long msb, long lsb) {
+            int mask = pairs.length / 2 - 1;
+            for (int slot = slot(msb, lsb, mask); ; slot = (slot + 1) & mask) {
+                long m = pairs[2 * slot];
+                long l = pairs[2 * slot + 1];
+                if (m == msb && l == lsb) return false;
+                if ((m | l) == 0) {
+                    pairs[2 * slot] = msb;
+                    pairs[2 * slot + 1] = lsb;
+                    return true;
+                }
+            }
+        }
+
+        private static int slot(long msb, long lsb, int mask) {
+            return (int) (((msb ^ lsb) * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
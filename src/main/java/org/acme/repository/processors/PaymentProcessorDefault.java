@@ -1,8 +1,10 @@
 package org.acme.repository.processors;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import org.acme.dto.HealthCheckResponseDTO;
 import org.acme.entity.Payment;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
@@ -15,6 +17,13 @@ public interface PaymentProcessorDefault {
     @Path("/service-health")
     RestResponse<HealthCheckResponseDTO> healthCheck();
 
+    @GET
+    @Path("/{id}")
+    RestResponse<Payment> getPayment(@PathParam("id") String correlationId);
+
     @POST
     RestResponse<Void> processPayment(Payment payment);
+
+    @POST
+    Uni<RestResponse<Void>> processPaymentAsync(Payment payment);
 }
@@ -0,0 +1,80 @@
+package org.acme.repository.redis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Key layout for payment-queue.shards. Shard 0 keeps the original key, so one shard is the plain single-list
+ * queue. Payments land on a shard by correlationId hash. A node prefers the shards where
+ * {@code shard % node-count == node-index} and steals from the others only after its own are empty; every
+ * poll rotates the starting shard so none of them is always served first.
+ */
+final class QueueShards {
+
+    private final String[] keys;
+    private final String[][] pollOrders;
+    private final String[] ownedKeys;
+    private final Set<String> owned;
+    private final AtomicInteger next = new AtomicInteger();
+
+    QueueShards(String baseKey, int shardCount, int nodeIndex, int nodeCount) {
+        int shards = Math.max(1, shardCount);
+        int nodes = Math.max(1, nodeCount);
+        this.keys = new String[shards];
+        List<String> ownedList = new ArrayList<>();
+        List<String> others = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            keys[shard] = shard == 0 ? baseKey : baseKey + ":" + shard;
+            (shard % nodes == nodeIndex ? ownedList : others).add(keys[shard]);
+        }
+
+        if (ownedList.isEmpty()) {
+            ownedList.addAll(others);
+            others.clear();
+        }
+        this.ownedKeys = ownedList.toArray(String[]::new);
+        this.owned = new HashSet<>(ownedList);
+        this.pollOrders = new String[shards][];
+        for (int rotation = 0; rotation < shards; rotation++) {
+            List<String> order = new ArrayList<>(shards);
+            addRotated(order, ownedList, rotation);
+            addRotated(order, others, rotation);
+            pollOrders[rotation] = order.toArray(String[]::new);
+        }
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String[] keys() {
+        return keys;
+    }
+
+    String keyFor(UUID correlationId) {
+        return keys.length == 1 ? keys[0] : keys[Math.floorMod(correlationId.hashCode(), keys.length)];
+    }
+
+    String[] pollOrder() {
+        return pollOrders.length == 1 ? pollOrders[0] : pollOrders[Math.floorMod(next.getAndIncrement(), pollOrders.length)];
+    }
+
+    /** Promoted retries go back to one of this node's own shards. */
+    String promoteTarget() {
+        return ownedKeys.length == 1 ? ownedKeys[0] : ownedKeys[Math.floorMod(next.getAndIncrement(), ownedKeys.length)];
+    }
+
+    boolean isOwned(String key) {
+        return owned.contains(key);
+    }
+
+    private static void addRotated(List<String> target, List<String> source, int rotation) {
+        for (int i = 0; i < source.size(); i++) {
+            target.add(source.get((i + rotation) % source.size()));
+        }
+    }
+}
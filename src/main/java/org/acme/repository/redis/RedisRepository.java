@@ -1,69 +1,404 @@
 package org.acme.repository.redis;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.hash.HashCommands;
 import io.quarkus.redis.datasource.list.KeyValue;
 import io.quarkus.redis.datasource.list.ListCommands;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
 import io.quarkus.redis.datasource.sortedset.ScoreRange;
+import io.quarkus.redis.datasource.sortedset.ScoredValue;
 import io.quarkus.redis.datasource.sortedset.SortedSetCommands;
+import io.quarkus.redis.datasource.sortedset.ZRangeArgs;
+import io.quarkus.redis.datasource.value.ValueCommands;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Future;
 import io.vertx.redis.client.Command;
 import io.vertx.redis.client.Redis;
 import io.vertx.redis.client.Request;
 import io.vertx.redis.client.Response;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
 import jakarta.inject.Inject;
-import org.acme.dto.PaymentRequestDTO;
+import org.acme.dto.ProcessorHealthSnapshotDTO;
 import org.acme.entity.Payment;
 import org.acme.entity.PaymentQueueItens;
+import org.acme.entity.PaymentTotals;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.acme.repository.redis.codec.BinaryPaymentCodec;
+import org.acme.repository.redis.codec.JsonPaymentCodec;
+import org.acme.repository.redis.codec.PaymentCodec;
+import org.acme.repository.redis.codec.QueueRecordCodec;
 import org.acme.repository.redis.dbo.PaymentDBO;
+import org.acme.utils.AmountUtils;
 import org.acme.utils.DateUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 
 @ApplicationScoped
-public class RedisRepository {
+@Typed(RedisRepository.class)
+public class RedisRepository implements PaymentRepository {
 
     private final String PAYMENT_QUEUE = "processing_payment_queue";
     private final String PAYMENT_SET = "payment_by_date";
+    private final String BUCKET_INDEX = "payment_bucket_index";
+    private final String BUCKET_COUNT = "payment_bucket_count:";
+    private final String BUCKET_CENTS = "payment_bucket_cents:";
+    private final String HEALTH_LEASE = "processor_health_leader";
+    private final String HEALTH_SNAPSHOT = "processor_health";
+    private final String HEALTH_CHANNEL = "processor_health_updates";
+    private final String HEALTH_SEQUENCE = "processor_health_sequence";
+    private final String HEALTH_PUBLISHED = "processor_health_published";
+    private final RedisScript HEALTH_SEQUENCE_SCRIPT = new RedisScript(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "return redis.call('INCR', KEYS[2])");
+    private final RedisScript HEALTH_PUBLISH_SCRIPT = new RedisScript(
+            "if tonumber(ARGV[2]) <= tonumber(redis.call('GET', KEYS[2]) or '0') then return 0 end " +
+            "redis.call('SET', KEYS[2], ARGV[2]) " +
+            "redis.call('SET', KEYS[1], ARGV[1]) " +
+            "redis.call('PUBLISH', ARGV[3], ARGV[1]) " +
+            "return 1");
+    private final RedisScript LEASE_SCRIPT = new RedisScript(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end " +
+            "return 0");
+    private final RedisScript ENQUEUE_SCRIPT = new RedisScript(
+            "local offset = #KEYS " +
+            "for k = 1, #KEYS do " +
+            "  local last = offset + tonumber(ARGV[k]) " +
+            "  for first = offset + 1, last, 1000 do " +
+            "    redis.call('RPUSH', KEYS[k], unpack(ARGV, first, math.min(first + 999, last))) " +
+            "  end " +
+            "  offset = last " +
+            "end " +
+            "return offset - #KEYS");
+    private final String RETRY_QUEUE = "payment_retry_queue";
+    private final String RETRY_ATTEMPTS = "payment_retry_attempts";
+    private final RedisScript RETRY_SCRIPT = new RedisScript(
+            "local attempt = redis.call('HINCRBY', KEYS[2], ARGV[1], 1) " +
+            "redis.call('HPEXPIRE', KEYS[2], ARGV[7], 'FIELDS', 1, ARGV[1]) " +
+            "local delay = math.min(tonumber(ARGV[5]), tonumber(ARGV[4]) * 2 ^ (attempt - 1)) " +
+            "delay = delay / 2 + delay / 2 * tonumber(ARGV[6]) " +
+            "redis.call('ZADD', KEYS[1], tonumber(ARGV[3]) + math.floor(delay), ARGV[2]) " +
+            "return attempt");
+    private final RedisScript PROMOTE_SCRIPT = new RedisScript(
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #due == 0 then return 0 end " +
+            "redis.call('ZREM', KEYS[1], unpack(due)) " +
+            "redis.call('RPUSH', KEYS[2], unpack(due)) " +
+            "return #due");
+    private final RedisScript SETTLE_SCRIPT = new RedisScript(
+            "local aggregate = ARGV[1] == '1' " +
+            "local stateTtl = tonumber(ARGV[3]) " +
+            "if ARGV[2] == '1' then redis.call('INCR', KEYS[9]) end " +
+            "for i = 4, #ARGV, 6 do " +
+            "  redis.call('HDEL', KEYS[2], ARGV[i + 2]) " +
+            "  if stateTtl == 0 or redis.call('HGET', KEYS[8], ARGV[i + 2]) ~= 'settled' then " +
+            "    local added = redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "    if stateTtl > 0 then " +
+            "      redis.call('HSET', KEYS[8], ARGV[i + 2], 'settled') " +
+            "      redis.call('HPEXPIRE', KEYS[8], stateTtl, 'FIELDS', 1, ARGV[i + 2]) " +
+            "    end " +
+            "    if aggregate and added == 1 then " +
+            "      local count = ARGV[i + 3] == 'default' and KEYS[4] or KEYS[6] " +
+            "      local cents = ARGV[i + 3] == 'default' and KEYS[5] or KEYS[7] " +
+            "      redis.call('ZADD', KEYS[3], ARGV[i + 5], ARGV[i + 5]) " +
+            "      redis.call('HINCRBY', count, ARGV[i + 5], 1) " +
+            "      redis.call('HINCRBY', cents, ARGV[i + 5], ARGV[i + 4]) " +
+            "    end " +
+            "  end " +
+            "end " +
+            "return (#ARGV - 3) / 6");
+    private final String ROLLUP_INDEX = "payment_rollup_index";
+    private final String ROLLUP_COUNT = "payment_rollup_count:";
+    private final String ROLLUP_CENTS = "payment_rollup_cents:";
+    private final String COMPACTION_EPOCH = "payment_compaction_epoch";
+    private final RedisScript COMPACT_SCRIPT = new RedisScript(
+            "local moved = 0 " +
+            "for i = 1, #ARGV, 4 do " +
+            "  if redis.call('ZREM', KEYS[1], ARGV[i]) == 1 then " +
+            "    local count = ARGV[i + 1] == 'default' and KEYS[3] or KEYS[5] " +
+            "    local cents = ARGV[i + 1] == 'default' and KEYS[4] or KEYS[6] " +
+            "    redis.call('ZADD', KEYS[2], ARGV[i + 3], ARGV[i + 3]) " +
+            "    redis.call('HINCRBY', count, ARGV[i + 3], 1) " +
+            "    redis.call('HINCRBY', cents, ARGV[i + 3], ARGV[i + 2]) " +
+            "    moved = moved + 1 " +
+            "  end " +
+            "end " +
+            "if moved > 0 then " +
+            "  redis.call('INCR', KEYS[7]) " +
+            "  redis.call('INCR', KEYS[8]) " +
+            "end " +
+            "return moved");
+    private final String COMPACTION_WATERMARK = "payment_compaction_watermark";
+    private final RedisScript TRIM_SCRIPT = new RedisScript(
+            "if tonumber(ARGV[1]) > tonumber(redis.call('GET', KEYS[1]) or '0') then " +
+            "  redis.call('SET', KEYS[1], ARGV[1]) " +
+            "end " +
+            "local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "for _, field in ipairs(stale) do " +
+            "  for k = 3, 6 do redis.call('HDEL', KEYS[k], field) end " +
+            "end " +
+            "if #stale > 0 then redis.call('ZREM', KEYS[2], unpack(stale)) end " +
+            "return #stale");
+    private final String ROLLUP_COARSENED = "payment_rollup_coarsened";
+    private final RedisScript COARSEN_SCRIPT = new RedisScript(
+            "local low = redis.call('GET', KEYS[6]) " +
+            "local fields = redis.call('ZRANGEBYSCORE', KEYS[1], low and '(' .. low or '-inf', '(' .. ARGV[1], 'LIMIT', 0, ARGV[3]) " +
+            "local size = tonumber(ARGV[2]) " +
+            "local moved = 0 " +
+            "for _, field in ipairs(fields) do " +
+            "  local start = tonumber(field) " +
+            "  local coarse = string.format('%d', start - start % size) " +
+            "  if coarse ~= field then " +
+            "    for k = 2, 5 do " +
+            "      local value = redis.call('HGET', KEYS[k], field) " +
+            "      if value then " +
+            "        redis.call('HINCRBY', KEYS[k], coarse, value) " +
+            "        redis.call('HDEL', KEYS[k], field) " +
+            "      end " +
+            "    end " +
+            "    redis.call('ZREM', KEYS[1], field) " +
+            "    redis.call('ZADD', KEYS[1], coarse, coarse) " +
+            "    moved = moved + 1 " +
+            "  end " +
+            "end " +
+            "redis.call('SET', KEYS[6], #fields == tonumber(ARGV[3]) and fields[#fields] or string.format('%d', tonumber(ARGV[1]) - 1)) " +
+            "if moved > 0 then " +
+            "  redis.call('INCR', KEYS[7]) " +
+            "  redis.call('INCR', KEYS[8]) " +
+            "end " +
+            "return moved");
+    private final String PAYMENT_STATE = "payment_state";
+    private final RedisScript MARK_SCRIPT = new RedisScript(
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "return redis.call('HPEXPIRE', KEYS[1], ARGV[3], 'FIELDS', 1, ARGV[1])");
+    private final String LEDGER_EPOCH = "payment_ledger_epoch";
+    private final String DEFAULT = "default";
+    private final String FALLBACK = "fallback";
+
     private final Redis redis;
-    private final ListCommands<String, String> paymentList;
-    private final SortedSetCommands<String, PaymentDBO> paymentSortedSet;
+    private final ObjectMapper objectMapper;
+    private final ListCommands<String, byte[]> paymentList;
+    private final SortedSetCommands<String, byte[]> paymentSortedSet;
+    private final SortedSetCommands<String, Long> bucketIndex;
+    private final HashCommands<String, String, Long> bucketHash;
+    private final ValueCommands<String, ProcessorHealthSnapshotDTO> healthValue;
+    private final PubSubCommands<ProcessorHealthSnapshotDTO> healthPubSub;
+    private final boolean summaryAggregate;
+    private final long bucketMs;
+    private final long stableLagMs;
+    private final JsonPaymentCodec jsonCodec;
+    private final BinaryPaymentCodec binaryCodec;
+    private final PaymentCodec writeCodec;
+    private final boolean binaryQueue;
+    private final QueueShards queueShards;
+    private final LongAdder stolen;
+    private final boolean compactionEnabled;
+    private final long rollupMs;
+    private final long stateTtlMs;
+    private final long attemptsTtlMs;
 
     @Inject
     public RedisRepository(
             RedisDataSource redisDs,
-            Redis redis
+            Redis redis,
+            ObjectMapper objectMapper,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-summary.aggregate") boolean summaryAggregate,
+            @ConfigProperty(name = "payment-summary.bucket-ms") long bucketMs,
+            @ConfigProperty(name = "payment-summary.stable-lag-ms") long stableLagMs,
+            @ConfigProperty(name = "payment-store.codec") String codec,
+            @ConfigProperty(name = "payment-queue.codec") String queueCodec,
+            @ConfigProperty(name = "payment-queue.shards") int queueShards,
+            @ConfigProperty(name = "payment-queue.node-index") int nodeIndex,
+            @ConfigProperty(name = "payment-queue.node-count") int nodeCount,
+            @ConfigProperty(name = "payment-compaction.enabled") boolean compactionEnabled,
+            @ConfigProperty(name = "payment-compaction.rollup-ms") long rollupMs,
+            @ConfigProperty(name = "payment-compaction.horizon-ms") long horizonMs,
+            @ConfigProperty(name = "payment-dedup.enabled") boolean dedupEnabled,
+            @ConfigProperty(name = "payment-dedup.state-ttl-ms") long stateTtlMs
     ) {
         this.redis = redis;
-        this.paymentList = redisDs.list(String.class, String.class);
-        this.paymentSortedSet = redisDs.sortedSet(PaymentDBO.class);
+        this.objectMapper = objectMapper;
+        this.paymentList = redisDs.list(String.class, byte[].class);
+        this.paymentSortedSet = redisDs.sortedSet(String.class, byte[].class);
+        this.bucketIndex = redisDs.sortedSet(String.class, Long.class);
+        this.bucketHash = redisDs.hash(String.class, String.class, Long.class);
+        this.healthValue = redisDs.value(String.class, ProcessorHealthSnapshotDTO.class);
+        this.healthPubSub = redisDs.pubsub(ProcessorHealthSnapshotDTO.class);
+        this.summaryAggregate = summaryAggregate;
+        this.bucketMs = bucketMs;
+        this.stableLagMs = stableLagMs;
+        this.jsonCodec = new JsonPaymentCodec(objectMapper);
+        this.binaryCodec = new BinaryPaymentCodec();
+        this.writeCodec = "binary".equals(codec) ? binaryCodec : jsonCodec;
+        this.binaryQueue = "binary".equals(queueCodec);
+        this.queueShards = new QueueShards(PAYMENT_QUEUE, queueShards, nodeIndex, nodeCount);
+        this.stolen = metricsRegistry.counter("queue.stolen");
+        this.compactionEnabled = compactionEnabled;
+        this.rollupMs = rollupMs;
+        // once compacted, a payment is no longer in payment_by_date, so only its settled marker stops a
+        // duplicate settle from adding it again; the marker has to outlive the horizon
+        long ttl = compactionEnabled ? Math.max(stateTtlMs, 2 * horizonMs) : stateTtlMs;
+        this.stateTtlMs = dedupEnabled || compactionEnabled ? Math.max(1, ttl) : 0;
+        this.attemptsTtlMs = Math.max(1, stateTtlMs);
+    }
+
+    @PostConstruct
+    void loadScripts() {
+        for (RedisScript script : List.of(LEASE_SCRIPT, RETRY_SCRIPT, PROMOTE_SCRIPT, SETTLE_SCRIPT, COMPACT_SCRIPT, MARK_SCRIPT,
+                TRIM_SCRIPT, COARSEN_SCRIPT, ENQUEUE_SCRIPT, HEALTH_SEQUENCE_SCRIPT, HEALTH_PUBLISH_SCRIPT)) {
+            redis.send(script.load());
+        }
+    }
+
+    @Override
+    public byte[] encodeQueueItem(PaymentQueueItens payment) {
+        return binaryQueue ? QueueRecordCodec.encode(payment) : QueueRecordCodec.encodeText(payment);
+    }
+
+    @Override
+    public void enqueue (PaymentQueueItens payment) {
+        byte[] paymentData = encodeQueueItem(payment);
+        paymentList.rpush(queueShards.keyFor(payment.correlationId()), paymentData);
+    }
+
+    /**
+     * With several shards the batch is pushed by one script, so a failure leaves none of it queued and the
+     * caller's retry of the whole batch cannot duplicate the part that already went through.
+     */
+    @Override
+    public void enqueueEncoded(List<byte[]> paymentData) {
+        if (queueShards.size() == 1) {
+            paymentList.rpush(PAYMENT_QUEUE, paymentData.toArray(byte[][]::new));
+            return;
+        }
+
+        Map<String, List<byte[]>> byShard = new HashMap<>();
+        for (byte[] value : paymentData) {
+            String key = queueShards.keyFor(QueueRecordCodec.correlationId(value));
+            byShard.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        await(runScript(ENQUEUE_SCRIPT, request -> {
+            request.arg(byShard.size());
+            byShard.keySet().forEach(request::arg);
+            byShard.values().forEach(values -> request.arg(values.size()));
+            byShard.values().forEach(values -> values.forEach(request::arg));
+            return request;
+        }));
+    }
+
+    @Override
+    public Uni<Void> enqueueAsync(PaymentQueueItens payment) {
+        byte[] paymentData = encodeQueueItem(payment);
+        return Uni.createFrom().completionStage(() -> redis.send(Request.cmd(Command.RPUSH).arg(queueShards.keyFor(payment.correlationId())).arg(paymentData))
+                .toCompletionStage()).replaceWithVoid();
+    }
+
+    @Override
+    public long scheduleRetry(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs) {
+        return await(runScript(RETRY_SCRIPT, retryArgs(payment, baseDelayMs, maxDelayMs))).toLong();
+    }
+
+    @Override
+    public Uni<Void> scheduleRetryAsync(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs) {
+        UnaryOperator<Request> args = retryArgs(payment, baseDelayMs, maxDelayMs);
+        return Uni.createFrom().completionStage(() -> runScript(RETRY_SCRIPT, args).toCompletionStage()).replaceWithVoid();
+    }
+
+    @Override
+    public int promoteDueRetries(int maxItems) {
+        long now = System.currentTimeMillis();
+        Response response = await(runScript(PROMOTE_SCRIPT, request -> request
+                .arg(2).arg(RETRY_QUEUE).arg(queueShards.promoteTarget()).arg(now).arg(maxItems)));
+        return response == null ? 0 : response.toInteger();
+    }
+
+    @Override
+    public String getPaymentState(String correlationId) {
+        Response response = await(redis.send(Request.cmd(Command.HGET).arg(PAYMENT_STATE).arg(correlationId)));
+        return response == null ? null : response.toString();
+    }
+
+    @Override
+    public void markInFlight(String correlationId, String processorName) {
+        await(runScript(MARK_SCRIPT, markInFlightArgs(correlationId, processorName)));
     }
 
-    public void enqueue (PaymentRequestDTO payment) {
-        String paymentData = payment.correlationId() + ":" + payment.amount();
-        paymentList.rpush(PAYMENT_QUEUE, paymentData);
+    @Override
+    public Uni<Void> markInFlightAsync(String correlationId, String processorName) {
+        UnaryOperator<Request> args = markInFlightArgs(correlationId, processorName);
+        return Uni.createFrom().completionStage(() -> runScript(MARK_SCRIPT, args).toCompletionStage()).replaceWithVoid();
     }
 
+    @Override
     public PaymentQueueItens dequeue() {
-        KeyValue<String, String> result = paymentList.blpop(Duration.ofMillis(1000), PAYMENT_QUEUE);
+        KeyValue<String, byte[]> result = paymentList.blpop(Duration.ofMillis(1000), queueShards.pollOrder());
         if (result != null) {
-            String[] parts = result.value().split(":");
-            UUID correlationId = UUID.fromString(parts[0]);
-            BigDecimal amount = new BigDecimal(parts[1]);
-            return new PaymentQueueItens(correlationId, amount);
+            if (!queueShards.isOwned(result.key())) stolen.increment();
+            return QueueRecordCodec.decode(result.value());
         }
 
         return null;
     }
 
+    @Override
+    public List<PaymentQueueItens> dequeueBatch(int maxItems) {
+        List<byte[]> values = null;
+        for (String key : queueShards.pollOrder()) {
+            values = paymentList.lpop(key, maxItems);
+            if (values != null && !values.isEmpty()) {
+                if (!queueShards.isOwned(key)) stolen.increment();
+                break;
+            }
+        }
+
+        if (values == null || values.isEmpty()) {
+            PaymentQueueItens item = dequeue();
+            return item == null ? List.of() : List.of(item);
+        }
+
+        List<PaymentQueueItens> items = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            items.add(QueueRecordCodec.decode(value));
+        }
+        return items;
+    }
+
+    @Override
+    public long queueDepth() {
+        long depth = 0;
+        for (String key : queueShards.keys()) {
+            depth += paymentList.llen(key);
+        }
+        return depth;
+    }
+
+    @Override
     public void closeClient() {
         if (redis != null) redis.close();
     }
 
+    @Override
     public boolean isConnected() {
         try {
             Response response = redis.send(Request.cmd(Command.PING)).toCompletionStage().toCompletableFuture().get();
@@ -73,15 +408,357 @@ public class RedisRepository {
         }
     }
 
+    public boolean tryAcquireHealthLease(String nodeId, long leaseMs) {
+        Response response = await(runScript(LEASE_SCRIPT, request -> request
+                .arg(1).arg(HEALTH_LEASE).arg(nodeId).arg(leaseMs)));
+        return response != null && response.toInteger() == 1;
+    }
+
+    /**
+     * Hands out the next snapshot sequence, or 0 when {@code nodeId} no longer holds the lease. Sequences come
+     * from one Redis counter, so they keep increasing across leader changes whatever the nodes' clocks say.
+     */
+    public long nextHealthSequence(String nodeId) {
+        Response response = await(runScript(HEALTH_SEQUENCE_SCRIPT, request -> request
+                .arg(2).arg(HEALTH_LEASE).arg(HEALTH_SEQUENCE).arg(nodeId)));
+        return response == null ? 0 : response.toLong();
+    }
+
+    /** Stores and broadcasts the snapshot unless one with a higher sequence was published already. */
+    public void publishHealth(ProcessorHealthSnapshotDTO snapshot) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        await(runScript(HEALTH_PUBLISH_SCRIPT, request -> request
+                .arg(2).arg(HEALTH_SNAPSHOT).arg(HEALTH_PUBLISHED)
+                .arg(json).arg(snapshot.sequence()).arg(HEALTH_CHANNEL)));
+    }
+
+    public ProcessorHealthSnapshotDTO getHealth() {
+        return healthValue.get(HEALTH_SNAPSHOT);
+    }
+
+    public PubSubCommands.RedisSubscriber subscribeHealth(Consumer<ProcessorHealthSnapshotDTO> onSnapshot) {
+        return healthPubSub.subscribe(HEALTH_CHANNEL, onSnapshot);
+    }
+
     public List<PaymentDBO> getPayments (Long from, Long to) {
-        return paymentSortedSet.zrangebyscore(PAYMENT_SET, new ScoreRange(from, to));
+        List<byte[]> members = paymentSortedSet.zrangebyscore(PAYMENT_SET, scoreRange(from, to));
+        List<PaymentDBO> payments = new ArrayList<>(members.size());
+        for (byte[] member : members) {
+            payments.add(codecFor(member).decode(member));
+        }
+        return payments;
+    }
+
+    @Override
+    public PaymentTotals getTotals(Long from, Long to) {
+        return consistentWithCompaction(() -> {
+            PaymentTotals totals = new PaymentTotals();
+            sumPayments(from, to, totals);
+            return totals;
+        });
+    }
+
+    @Override
+    public PaymentTotals getAggregatedTotals(Long from, Long to) {
+        return consistentWithCompaction(() -> aggregatedTotals(from, to));
+    }
+
+    /**
+     * Rolls settled payments scored before {@code before} into per-processor totals per rollup-ms interval
+     * and removes them from the raw set, at most {@code maxEntries} per call. Only members this call
+     * actually removes are counted, so concurrent runs on several nodes do not double count. A range that
+     * cuts through a rollup interval reads differently once it is compacted, so any move also bumps the
+     * ledger epoch and summary caches drop what they computed from the raw entries.
+     */
+    public int compactLedger(long before, int maxEntries) {
+        List<ScoredValue<byte[]>> entries = paymentSortedSet.zrangebyscoreWithScores(PAYMENT_SET,
+                new ScoreRange<>(null, (double) (before - 1)), new ZRangeArgs().limit(0, maxEntries));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        Response response = await(runScript(COMPACT_SCRIPT, request -> {
+            request.arg(8).arg(PAYMENT_SET).arg(ROLLUP_INDEX)
+                    .arg(ROLLUP_COUNT + DEFAULT).arg(ROLLUP_CENTS + DEFAULT)
+                    .arg(ROLLUP_COUNT + FALLBACK).arg(ROLLUP_CENTS + FALLBACK)
+                    .arg(COMPACTION_EPOCH).arg(LEDGER_EPOCH);
+            for (ScoredValue<byte[]> entry : entries) {
+                PaymentDBO payment = codecFor(entry.value()).decode(entry.value());
+                request.arg(entry.value())
+                        .arg(payment.getProcessor())
+                        .arg(AmountUtils.toCents(payment.getAmount()))
+                        .arg(Math.floorDiv((long) entry.score(), rollupMs) * rollupMs);
+            }
+            return request;
+        }));
+        return response == null ? 0 : response.toInteger();
+    }
+
+    /**
+     * Aggregate buckets behind the compaction watermark are never read, since summaries take that part from
+     * the raw set and rollups, so this drops up to {@code maxEntries} of them after moving the watermark to
+     * {@code before}.
+     */
+    public int trimBuckets(long before, int maxEntries) {
+        Response response = await(runScript(TRIM_SCRIPT, request -> request.arg(6).arg(COMPACTION_WATERMARK)
+                .arg(BUCKET_INDEX).arg(BUCKET_COUNT + DEFAULT).arg(BUCKET_CENTS + DEFAULT)
+                .arg(BUCKET_COUNT + FALLBACK).arg(BUCKET_CENTS + FALLBACK)
+                .arg(before).arg(maxEntries)));
+        return response == null ? 0 : response.toInteger();
+    }
+
+    /**
+     * Merges rollup intervals starting before {@code before} into {@code coarseMs} intervals, so rollups grow
+     * by one interval per coarse-ms rather than per rollup-ms. Intervals are scanned once, from where the
+     * previous call stopped.
+     */
+    public int coarsenRollups(long before, long coarseMs, int maxEntries) {
+        Response response = await(runScript(COARSEN_SCRIPT, request -> request.arg(8).arg(ROLLUP_INDEX)
+                .arg(ROLLUP_COUNT + DEFAULT).arg(ROLLUP_CENTS + DEFAULT)
+                .arg(ROLLUP_COUNT + FALLBACK).arg(ROLLUP_CENTS + FALLBACK)
+                .arg(ROLLUP_COARSENED).arg(COMPACTION_EPOCH).arg(LEDGER_EPOCH)
+                .arg(before).arg(coarseMs).arg(maxEntries)));
+        return response == null ? 0 : response.toInteger();
+    }
+
+    @Override
+    public long getLedgerEpoch() {
+        Response response = await(redis.send(Request.cmd(Command.GET).arg(LEDGER_EPOCH)));
+        return response == null ? 0 : response.toLong();
     }
 
+    @Override
     public void savePayment(Payment payment, String processorName) {
-        final PaymentDBO paymentDBO = new PaymentDBO(UUID.fromString(payment.correlationId()), payment.amount(), processorName);
+        savePayments(Map.of(processorName, List.of(payment)));
+    }
+
+    @Override
+    public void savePayments(Map<String, List<Payment>> paymentsByProcessor) {
+        UnaryOperator<Request> args = settleArgs(paymentsByProcessor);
+        if (args != null) {
+            await(runScript(SETTLE_SCRIPT, args));
+        }
+    }
+
+    @Override
+    public Uni<Void> savePaymentsAsync(Map<String, List<Payment>> paymentsByProcessor) {
+        // built per subscription, so a retry that lands after stable-lag-ms still marks its entries late
+        return Uni.createFrom().deferred(() -> {
+            UnaryOperator<Request> args = settleArgs(paymentsByProcessor);
+            if (args == null) {
+                return Uni.createFrom().voidItem();
+            }
+
+            return Uni.createFrom().completionStage(runScript(SETTLE_SCRIPT, args).toCompletionStage()).replaceWithVoid();
+        });
+    }
+
+    private PaymentTotals aggregatedTotals(Long from, Long to) {
+        PaymentTotals totals = new PaymentTotals();
+
+        long watermark = compactionEnabled ? compactionWatermark() : 0;
+        if (watermark > 0 && (from == null || from < watermark)) {
+            if (to != null && to < watermark) {
+                sumPayments(from, to, totals);
+                return totals;
+            }
+            sumPayments(from, watermark - 1, totals);
+            sumAggregated(watermark, to, totals);
+            return totals;
+        }
+
+        sumAggregated(from, to, totals);
+        return totals;
+    }
+
+    private void sumAggregated(Long from, Long to, PaymentTotals totals) {
+        Long firstFull = from == null ? null : Math.ceilDiv(from, bucketMs) * bucketMs;
+        Long fullEnd = to == null ? null : Math.floorDiv(to + 1, bucketMs) * bucketMs;
+
+        if (firstFull != null && fullEnd != null && firstFull >= fullEnd) {
+            sumPayments(from, to, totals);
+            return;
+        }
+
+        if (from != null && from < firstFull) {
+            sumPayments(from, firstFull - 1, totals);
+        }
+
+        List<Long> buckets = bucketIndex.zrangebyscore(BUCKET_INDEX,
+                scoreRange(firstFull, fullEnd == null ? null : fullEnd - bucketMs));
+        if (!buckets.isEmpty()) {
+            String[] fields = buckets.stream().map(String::valueOf).toArray(String[]::new);
+            sumBuckets(BUCKET_COUNT, BUCKET_CENTS, DEFAULT, fields, totals);
+            sumBuckets(BUCKET_COUNT, BUCKET_CENTS, FALLBACK, fields, totals);
+        }
+
+        if (to != null && fullEnd <= to) {
+            sumPayments(fullEnd, to, totals);
+        }
+    }
+
+    private UnaryOperator<Request> settleArgs(Map<String, List<Payment>> paymentsByProcessor) {
+        List<SettleEntry> entries = new ArrayList<>();
+        long stableUntil = System.currentTimeMillis() - stableLagMs;
+        boolean late = false;
+
+        for (Map.Entry<String, List<Payment>> entry : paymentsByProcessor.entrySet()) {
+            String processorName = entry.getKey();
+            for (Payment payment : entry.getValue()) {
+                final PaymentDBO paymentDBO = new PaymentDBO(UUID.fromString(payment.correlationId()), payment.amount(), processorName);
+                long score = DateUtils.parseIsoUtcToEpochMilli(payment.requestedAt());
+                long bucket = Math.floorDiv(score, bucketMs) * bucketMs;
+                late |= score <= stableUntil;
+                entries.add(new SettleEntry(score, writeCodec.encode(paymentDBO), payment.correlationId(),
+                        processorName, AmountUtils.toCents(payment.amount()), bucket));
+            }
+        }
+
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        boolean lateEntries = late;
+        return request -> {
+            request.arg(9).arg(PAYMENT_SET).arg(RETRY_ATTEMPTS).arg(BUCKET_INDEX)
+                    .arg(BUCKET_COUNT + DEFAULT).arg(BUCKET_CENTS + DEFAULT)
+                    .arg(BUCKET_COUNT + FALLBACK).arg(BUCKET_CENTS + FALLBACK)
+                    .arg(PAYMENT_STATE).arg(LEDGER_EPOCH)
+                    .arg(summaryAggregate ? "1" : "0")
+                    .arg(lateEntries ? "1" : "0")
+                    .arg(stateTtlMs);
+            for (SettleEntry entry : entries) {
+                request.arg(entry.score())
+                        .arg(entry.member())
+                        .arg(entry.correlationId())
+                        .arg(entry.processor())
+                        .arg(entry.cents())
+                        .arg(entry.bucket());
+            }
+            return request;
+        };
+    }
+
+    private void sumBuckets(String countKey, String centsKey, String processor, String[] fields, PaymentTotals totals) {
+        Map<String, Long> counts = bucketHash.hmget(countKey + processor, fields);
+        Map<String, Long> cents = bucketHash.hmget(centsKey + processor, fields);
 
-        Long score = DateUtils.parseIsoUtcToEpochMilli(payment.requestedAt());
+        long count = 0;
+        long amount = 0;
+        for (String field : fields) {
+            Long bucketCount = counts.get(field);
+            Long bucketCents = cents.get(field);
+            if (bucketCount != null) count += bucketCount;
+            if (bucketCents != null) amount += bucketCents;
+        }
 
-        paymentSortedSet.zadd(PAYMENT_SET, score, paymentDBO);
+        totals.add(processor, count, amount);
     }
+
+    /** Null bounds are open; millisecond scores stay exact as doubles. */
+    private static ScoreRange<Double> scoreRange(Long from, Long to) {
+        return new ScoreRange<>(from == null ? null : from.doubleValue(), to == null ? null : to.doubleValue());
+    }
+
+    private void sumPayments(Long from, Long to, PaymentTotals totals) {
+        for (byte[] member : paymentSortedSet.zrangebyscore(PAYMENT_SET, scoreRange(from, to))) {
+            codecFor(member).accumulate(member, totals);
+        }
+
+        if (compactionEnabled) {
+            sumRollups(from, to, totals);
+        }
+    }
+
+    /** A rollup interval counts towards a range when its start lies inside it. */
+    private void sumRollups(Long from, Long to, PaymentTotals totals) {
+        List<Long> intervals = bucketIndex.zrangebyscore(ROLLUP_INDEX, scoreRange(from, to));
+        if (!intervals.isEmpty()) {
+            String[] fields = intervals.stream().map(String::valueOf).toArray(String[]::new);
+            sumBuckets(ROLLUP_COUNT, ROLLUP_CENTS, DEFAULT, fields, totals);
+            sumBuckets(ROLLUP_COUNT, ROLLUP_CENTS, FALLBACK, fields, totals);
+        }
+    }
+
+    /**
+     * Raw entries and rollups are read separately, so a compaction batch landing in between would be missed
+     * or counted twice; the read is repeated when the compaction epoch moved meanwhile.
+     */
+    private PaymentTotals consistentWithCompaction(Supplier<PaymentTotals> read) {
+        if (!compactionEnabled) {
+            return read.get();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            long epoch = compactionEpoch();
+            PaymentTotals totals = read.get();
+            if (attempt == 2 || compactionEpoch() == epoch) {
+                return totals;
+            }
+        }
+    }
+
+    private long compactionEpoch() {
+        Response response = await(redis.send(Request.cmd(Command.GET).arg(COMPACTION_EPOCH)));
+        return response == null ? 0 : response.toLong();
+    }
+
+    private long compactionWatermark() {
+        Response response = await(redis.send(Request.cmd(Command.GET).arg(COMPACTION_WATERMARK)));
+        return response == null ? 0 : response.toLong();
+    }
+
+    /** Markers only matter while a duplicate can still turn up, so each field expires after state-ttl-ms. */
+    private UnaryOperator<Request> markInFlightArgs(String correlationId, String processorName) {
+        return request -> request.arg(1).arg(PAYMENT_STATE).arg(correlationId).arg(processorName).arg(stateTtlMs);
+    }
+
+    /**
+     * Settling clears a payment's attempt count, but a payment dropped as a duplicate never settles here, so
+     * each count also expires state-ttl-ms (and at least two maximum delays) after its last retry.
+     */
+    private UnaryOperator<Request> retryArgs(PaymentQueueItens payment, long baseDelayMs, long maxDelayMs) {
+        byte[] paymentData = encodeQueueItem(payment);
+        long now = System.currentTimeMillis();
+        String jitter = String.valueOf(ThreadLocalRandom.current().nextDouble());
+        long ttl = Math.max(attemptsTtlMs, 2 * maxDelayMs);
+        return request -> request.arg(2).arg(RETRY_QUEUE).arg(RETRY_ATTEMPTS)
+                .arg(payment.correlationId().toString())
+                .arg(paymentData)
+                .arg(now)
+                .arg(baseDelayMs)
+                .arg(maxDelayMs)
+                .arg(jitter)
+                .arg(ttl);
+    }
+
+    private Future<Response> runScript(RedisScript script, UnaryOperator<Request> args) {
+        return redis.send(args.apply(script.evalsha()))
+                .recover(e -> e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")
+                        ? redis.send(args.apply(script.eval()))
+                        : Future.failedFuture(e));
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.toCompletionStage().toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private PaymentCodec codecFor(byte[] member) {
+        return BinaryPaymentCodec.isBinary(member) ? binaryCodec : jsonCodec;
+    }
+
+    private record SettleEntry(long score, byte[] member, String correlationId, String processor, long cents, long bucket) { }
 }
@@ -0,0 +1,41 @@
+package org.acme.repository.redis;
+
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Request;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class RedisScript {
+
+    private final String source;
+    private final String sha;
+
+    RedisScript(String source) {
+        this.source = source;
+        this.sha = sha1(source);
+    }
+
+    Request load() {
+        return Request.cmd(Command.SCRIPT).arg("LOAD").arg(source);
+    }
+
+    Request evalsha() {
+        return Request.cmd(Command.EVALSHA).arg(sha);
+    }
+
+    Request eval() {
+        return Request.cmd(Command.EVAL).arg(source);
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
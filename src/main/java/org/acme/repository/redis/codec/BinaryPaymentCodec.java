@@ -0,0 +1,62 @@
+package org.acme.repository.redis.codec;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.repository.redis.dbo.PaymentDBO;
+import org.acme.utils.AmountUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+/**
+ * Fixed-width member layout: correlationId msb (8) | lsb (8) | amount in cents (8) | processor tag (1).
+ */
+public class BinaryPaymentCodec implements PaymentCodec {
+
+    public static final int RECORD_SIZE = 25;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final String DEFAULT = "default";
+    private static final String FALLBACK = "fallback";
+    private static final byte DEFAULT_TAG = 1;
+    private static final byte FALLBACK_TAG = 2;
+
+    public static boolean isBinary(byte[] member) {
+        return member.length == RECORD_SIZE;
+    }
+
+    @Override
+    public byte[] encode(PaymentDBO payment) {
+        byte[] member = new byte[RECORD_SIZE];
+        LONG.set(member, 0, payment.getCorrelationId().getMostSignificantBits());
+        LONG.set(member, 8, payment.getCorrelationId().getLeastSignificantBits());
+        LONG.set(member, 16, AmountUtils.toCents(payment.getAmount()));
+        member[24] = toTag(payment.getProcessor());
+        return member;
+    }
+
+    @Override
+    public PaymentDBO decode(byte[] member) {
+        UUID correlationId = new UUID((long) LONG.get(member, 0), (long) LONG.get(member, 8));
+        return new PaymentDBO(correlationId, AmountUtils.fromCents((long) LONG.get(member, 16)), fromTag(member[24]));
+    }
+
+    @Override
+    public void accumulate(byte[] member, PaymentTotals totals) {
+        totals.add(fromTag(member[24]), 1, (long) LONG.get(member, 16));
+    }
+
+    private static byte toTag(String processor) {
+        if (DEFAULT.equals(processor)) return DEFAULT_TAG;
+        if (FALLBACK.equals(processor)) return FALLBACK_TAG;
+        throw new IllegalArgumentException("Unknown processor: " + processor);
+    }
+
+    private static String fromTag(byte tag) {
+        if (tag == DEFAULT_TAG) return DEFAULT;
+        if (tag == FALLBACK_TAG) return FALLBACK;
+        throw new IllegalArgumentException("Unknown processor tag: " + tag);
+    }
+}
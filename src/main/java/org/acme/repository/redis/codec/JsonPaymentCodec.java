@@ -0,0 +1,42 @@
+package org.acme.repository.redis.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.entity.PaymentTotals;
+import org.acme.repository.redis.dbo.PaymentDBO;
+import org.acme.utils.AmountUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class JsonPaymentCodec implements PaymentCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonPaymentCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] encode(PaymentDBO payment) {
+        try {
+            return objectMapper.writeValueAsBytes(payment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PaymentDBO decode(byte[] member) {
+        try {
+            return objectMapper.readValue(member, PaymentDBO.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void accumulate(byte[] member, PaymentTotals totals) {
+        PaymentDBO payment = decode(member);
+        totals.add(payment.getProcessor(), 1, AmountUtils.toCents(payment.getAmount()));
+    }
+}
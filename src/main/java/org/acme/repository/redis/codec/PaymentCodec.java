@@ -0,0 +1,13 @@
+package org.acme.repository.redis.codec;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.repository.redis.dbo.PaymentDBO;
+
+public interface PaymentCodec {
+
+    byte[] encode(PaymentDBO payment);
+
+    PaymentDBO decode(byte[] member);
+
+    void accumulate(byte[] member, PaymentTotals totals);
+}
@@ -0,0 +1,56 @@
+package org.acme.repository.redis.codec;
+
+import org.acme.entity.PaymentQueueItens;
+import org.acme.utils.AmountUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Queue entry layout: correlationId msb (8) | lsb (8) | amount in cents (8). Entries written before the
+ * binary layout existed are {@code correlationId:amount} strings and are still decoded.
+ */
+public final class QueueRecordCodec {
+
+    public static final int RECORD_SIZE = 24;
+
+    private static final int UUID_LENGTH = 36;
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private QueueRecordCodec() {
+    }
+
+    public static byte[] encode(PaymentQueueItens item) {
+        byte[] record = new byte[RECORD_SIZE];
+        LONG.set(record, 0, item.correlationId().getMostSignificantBits());
+        LONG.set(record, 8, item.correlationId().getLeastSignificantBits());
+        LONG.set(record, 16, item.amountCents());
+        return record;
+    }
+
+    public static byte[] encodeText(PaymentQueueItens item) {
+        return (item.correlationId() + ":" + item.amount()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Reads only the correlationId, from the fixed offset of either layout, leaving the amount undecoded. */
+    public static UUID correlationId(byte[] value) {
+        if (value.length == RECORD_SIZE) {
+            return new UUID((long) LONG.get(value, 0), (long) LONG.get(value, 8));
+        }
+        return UUID.fromString(new String(value, 0, UUID_LENGTH, StandardCharsets.US_ASCII));
+    }
+
+    public static PaymentQueueItens decode(byte[] value) {
+        if (value.length == RECORD_SIZE) {
+            UUID correlationId = new UUID((long) LONG.get(value, 0), (long) LONG.get(value, 8));
+            return new PaymentQueueItens(correlationId, (long) LONG.get(value, 16));
+        }
+
+        String[] parts = new String(value, StandardCharsets.US_ASCII).split(":");
+        return new PaymentQueueItens(UUID.fromString(parts[0]), AmountUtils.toCents(new BigDecimal(parts[1])));
+    }
+}
@@ -0,0 +1,24 @@
+package org.acme.resource;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.Response;
+import org.acme.metrics.MetricsRegistry;
+
+@Path("/metrics")
+public class MetricsResource {
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Inject
+    public MetricsResource(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @GET
+    public Response getMetrics() {
+        return Response.status(HttpResponseStatus.OK.code()).entity(metricsRegistry.snapshot()).build();
+    }
+}
@@ -1,32 +1,65 @@
 package org.acme.resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import org.acme.dto.PaymentRequestDTO;
+import org.acme.entity.PaymentQueueItens;
 import org.acme.entity.PaymentsSummaryResponse;
+import org.acme.metrics.LatencyHistogram;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.service.AdmissionControl;
+import org.acme.service.IngestionBuffer;
 import org.acme.service.PaymentsService;
+import org.acme.utils.PaymentRequestParser;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 
 @Path("/")
 public class PaymentsResource {
 
     private final PaymentsService paymentsService;
+    private final IngestionBuffer ingestionBuffer;
+    private final AdmissionControl admissionControl;
     private final ExecutorService executorService;
+    private final ObjectMapper objectMapper;
+    private final LatencyHistogram ingressLatency;
+    private final LongAdder badRequests;
+    private final LongAdder rejected;
+    private final int maxInFlight;
+    private final AtomicInteger pendingEnqueues = new AtomicInteger();
 
     @Inject
     public PaymentsResource(
-            PaymentsService paymentsService
+            PaymentsService paymentsService,
+            IngestionBuffer ingestionBuffer,
+            AdmissionControl admissionControl,
+            ObjectMapper objectMapper,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-ingress.max-in-flight") int maxInFlight
     ) {
         this.paymentsService = paymentsService;
+        this.ingestionBuffer = ingestionBuffer;
+        this.admissionControl = admissionControl;
         this.executorService = Executors.newVirtualThreadPerTaskExecutor();
+        this.objectMapper = objectMapper;
+        this.ingressLatency = metricsRegistry.histogram("ingress.latency");
+        this.badRequests = metricsRegistry.counter("ingress.bad-requests");
+        this.rejected = metricsRegistry.counter("ingress.rejected");
+        this.maxInFlight = maxInFlight;
+
+        metricsRegistry.gauge("ingress.pending-enqueues", pendingEnqueues::get);
     }
 
     @Path("payments-summary")
@@ -42,8 +75,52 @@ public class PaymentsResource {
 
     @Path("payments")
     @POST
-    public Response postPayment(PaymentRequestDTO payment) {
-        executorService.submit(() -> paymentsService.enqueuePayment(payment));
-        return Response.status(HttpResponseStatus.ACCEPTED.code()).build();
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response postPayment(byte[] body) {
+        long start = System.nanoTime();
+        try {
+            if (!admissionControl.tryAdmit()) {
+                return overloaded();
+            }
+
+            PaymentQueueItens payment = PaymentRequestParser.read(body, objectMapper);
+            if (payment == null) {
+                badRequests.increment();
+                return Response.status(HttpResponseStatus.BAD_REQUEST.code()).build();
+            }
+
+            if (paymentsService.isDuplicatePayment(payment)) {
+                return Response.status(HttpResponseStatus.ACCEPTED.code()).build();
+            }
+
+            if (!ingestionBuffer.offer(payment)) {
+                if (pendingEnqueues.incrementAndGet() > maxInFlight) {
+                    pendingEnqueues.decrementAndGet();
+                    rejected.increment();
+                    return overloaded();
+                }
+                executorService.submit(() -> enqueue(payment));
+            }
+            return Response.status(HttpResponseStatus.ACCEPTED.code()).build();
+        } finally {
+            ingressLatency.recordSince(start);
+        }
+    }
+
+    private void enqueue(PaymentQueueItens payment) {
+        try {
+            paymentsService.enqueuePayment(payment);
+            admissionControl.recordEnqueueSuccess();
+        } catch (RuntimeException e) {
+            admissionControl.recordEnqueueFailure();
+        } finally {
+            pendingEnqueues.decrementAndGet();
+        }
+    }
+
+    private Response overloaded() {
+        return Response.status(HttpResponseStatus.SERVICE_UNAVAILABLE.code())
+                .header("Retry-After", admissionControl.retryAfterSeconds())
+                .build();
     }
 }
@@ -0,0 +1,131 @@
+package org.acme.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.metrics.LatencyHistogram;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.service.AdmissionControl;
+import org.acme.service.IngestionBuffer;
+import org.acme.service.PaymentsService;
+import org.acme.utils.PaymentRequestParser;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event-loop ingress for POST /payments, registered ahead of the REST resource when
+ * payment-ingress.mode=route. Payments go to the ingestion buffer or a non-blocking RPUSH; no thread is
+ * created per request, and submits beyond max-in-flight or refused by admission control get 503 instead of
+ * queueing up.
+ */
+@ApplicationScoped
+public class PaymentsRoute {
+
+    private final PaymentsService paymentsService;
+    private final IngestionBuffer ingestionBuffer;
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected;
+    private final LongAdder enqueueFailures;
+    private final LongAdder badRequests;
+    private final LatencyHistogram ingressLatency;
+
+    public PaymentsRoute(
+            PaymentsService paymentsService,
+            IngestionBuffer ingestionBuffer,
+            AdmissionControl admissionControl,
+            ObjectMapper objectMapper,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-ingress.mode") String mode,
+            @ConfigProperty(name = "payment-ingress.max-in-flight") int maxInFlight
+    ) {
+        this.paymentsService = paymentsService;
+        this.ingestionBuffer = ingestionBuffer;
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
+        this.enabled = "route".equals(mode);
+        this.maxInFlight = maxInFlight;
+        this.rejected = metricsRegistry.counter("ingress.rejected");
+        this.enqueueFailures = metricsRegistry.counter("ingress.enqueue-failures");
+        this.badRequests = metricsRegistry.counter("ingress.bad-requests");
+        this.ingressLatency = metricsRegistry.histogram("ingress.latency");
+
+        metricsRegistry.gauge("ingress.in-flight", inFlight::get);
+    }
+
+    void register(@Observes Router router) {
+        if (!enabled) {
+            return;
+        }
+
+        router.post("/payments").order(-1).handler(ctx -> {
+            long start = System.nanoTime();
+            ctx.request().body()
+                    .onSuccess(body -> {
+                        postPayment(ctx, body);
+                        ingressLatency.recordSince(start);
+                    })
+                    .onFailure(e -> {
+                        badRequests.increment();
+                        reply(ctx, HttpResponseStatus.BAD_REQUEST);
+                    });
+        });
+    }
+
+    private void postPayment(RoutingContext ctx, Buffer body) {
+        if (!admissionControl.tryAdmit()) {
+            replyOverloaded(ctx);
+            return;
+        }
+
+        PaymentQueueItens payment = PaymentRequestParser.read(body.getBytes(), objectMapper);
+        if (payment == null) {
+            badRequests.increment();
+            reply(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+
+        if (ingestionBuffer.offer(payment)) {
+            reply(ctx, HttpResponseStatus.ACCEPTED);
+            return;
+        }
+
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            replyOverloaded(ctx);
+            return;
+        }
+
+        reply(ctx, HttpResponseStatus.ACCEPTED);
+        paymentsService.enqueuePaymentAsync(payment).subscribe().with(
+                ignored -> {
+                    inFlight.decrementAndGet();
+                    admissionControl.recordEnqueueSuccess();
+                },
+                e -> {
+                    inFlight.decrementAndGet();
+                    enqueueFailures.increment();
+                    admissionControl.recordEnqueueFailure();
+                });
+    }
+
+    private void replyOverloaded(RoutingContext ctx) {
+        ctx.response().putHeader("Retry-After", String.valueOf(admissionControl.retryAfterSeconds()));
+        reply(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private void reply(RoutingContext ctx, HttpResponseStatus status) {
+        ctx.response().setStatusCode(status.code()).end();
+    }
+}
@@ -0,0 +1,164 @@
+package org.acme.service;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides at ingress whether a payment is taken. Queue depth is sampled every sample-ms rather than read per
+ * request. Below throttle-depth everything is admitted, between throttle-depth and shed-depth the admitted
+ * share drops linearly to zero, and above shed-depth everything is refused. A failed sample refuses
+ * everything until the next good one. After failure-threshold enqueue failures in a row (Redis can answer
+ * LLEN and still refuse writes at maxmemory) only one request per sample-ms gets through, as a probe, until
+ * an enqueue succeeds again.
+ */
+@Startup
+@ApplicationScoped
+public class AdmissionControl {
+
+    private ExecutorService executor;
+    private volatile boolean running;
+    private volatile long depth;
+    private volatile boolean queueReachable = true;
+
+    private final PaymentRepository paymentRepository;
+    private final boolean enabled;
+    private final boolean ingress;
+    private final long sampleMs;
+    private final long throttleDepth;
+    private final long shedDepth;
+    private final int failureThreshold;
+    private final long retryAfterSeconds;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong nextProbeNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder throttled;
+    private final LongAdder shed;
+    private final LongAdder enqueueFailures;
+
+    public AdmissionControl(
+            final PaymentRepository paymentRepository,
+            final MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "service.type") String serviceType,
+            @ConfigProperty(name = "payment-admission.enabled") boolean enabled,
+            @ConfigProperty(name = "payment-admission.sample-ms") long sampleMs,
+            @ConfigProperty(name = "payment-admission.throttle-depth") long throttleDepth,
+            @ConfigProperty(name = "payment-admission.shed-depth") long shedDepth,
+            @ConfigProperty(name = "payment-admission.failure-threshold") int failureThreshold,
+            @ConfigProperty(name = "payment-admission.retry-after-s") long retryAfterSeconds
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.enabled = enabled;
+        this.ingress = !"worker".equals(serviceType);
+        this.sampleMs = sampleMs;
+        this.throttleDepth = throttleDepth;
+        this.shedDepth = Math.max(throttleDepth, shedDepth);
+        this.failureThreshold = failureThreshold;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.throttled = metricsRegistry.counter("admission.throttled");
+        this.shed = metricsRegistry.counter("admission.shed");
+        this.enqueueFailures = metricsRegistry.counter("admission.enqueue-failures");
+
+        metricsRegistry.gauge("admission.sampled-depth", () -> depth);
+        metricsRegistry.gauge("admission.queue-reachable", () -> queueReachable ? 1 : 0);
+    }
+
+    @PostConstruct
+    void initSampler() {
+        if (!enabled || !ingress) {
+            return;
+        }
+
+        running = true;
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        executor.submit(this::sampleLoop);
+    }
+
+    @PreDestroy
+    void shutdownSampler() {
+        running = false;
+        if (executor != null) executor.shutdown();
+    }
+
+    public boolean tryAdmit() {
+        if (!running) {
+            return true;
+        }
+
+        if (!queueReachable) {
+            shed.increment();
+            return false;
+        }
+
+        if (consecutiveFailures.get() >= failureThreshold) {
+            long now = System.nanoTime();
+            long next = nextProbeNanos.get();
+            if (now - next >= 0 && nextProbeNanos.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(sampleMs))) {
+                return true;
+            }
+            shed.increment();
+            return false;
+        }
+
+        long current = depth;
+        if (current < throttleDepth) {
+            return true;
+        }
+
+        if (current >= shedDepth) {
+            shed.increment();
+            return false;
+        }
+
+        double admitted = (double) (shedDepth - current) / (shedDepth - throttleDepth);
+        if (ThreadLocalRandom.current().nextDouble() < admitted) {
+            return true;
+        }
+        throttled.increment();
+        return false;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void recordEnqueueSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public void recordEnqueueFailure() {
+        enqueueFailures.increment();
+        consecutiveFailures.incrementAndGet();
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            try {
+                depth = paymentRepository.queueDepth();
+                queueReachable = true;
+            } catch (Exception e) {
+                queueReachable = false;
+            }
+
+            try {
+                Thread.sleep(sampleMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.acme.service;
+
+/**
+ * Breaker for one processor, fed by live call outcomes. A call is bad when it throws, answers 5xx or 429, or
+ * takes longer than slow-call-ms. The breaker opens after consecutive-failures bad calls in a row, or when
+ * the bad share of the last window calls reaches failure-rate once min-calls are in. After open-ms it lets
+ * probe-calls calls through; all of them succeeding closes it again, any bad one reopens it. The router sends
+ * those probes to a breaker that wants them regardless of cost, since a processor that lost on cost would
+ * otherwise never get one.
+ */
+final class CircuitBreaker {
+
+    static final int CLOSED = 0;
+    static final int HALF_OPEN = 1;
+    static final int OPEN = 2;
+
+    private final boolean enabled;
+    private final boolean[] window;
+    private final int minCalls;
+    private final double failureRate;
+    private final int consecutiveFailureLimit;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probeCalls;
+
+    private volatile int state = CLOSED;
+    private volatile long openUntilNanos;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowBad;
+    private int consecutiveFailures;
+    private int probesIssued;
+    private int probesSucceeded;
+    private long trips;
+
+    CircuitBreaker(boolean enabled, int windowSize, int minCalls, double failureRate, int consecutiveFailures,
+                   long slowCallMs, long openMs, int probeCalls) {
+        this.enabled = enabled;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, minCalls);
+        this.failureRate = failureRate;
+        this.consecutiveFailureLimit = Math.max(1, consecutiveFailures);
+        this.slowCallNanos = slowCallMs * 1_000_000;
+        this.openNanos = openMs * 1_000_000;
+        this.probeCalls = Math.max(1, probeCalls);
+    }
+
+    int state() {
+        return state;
+    }
+
+    synchronized long trips() {
+        return trips;
+    }
+
+    /** Whether a call would be let through now, without taking a probe slot. */
+    boolean isCallPermitted() {
+        if (!enabled) return true;
+
+        int current = state;
+        if (current == CLOSED) return true;
+        if (current == OPEN) return System.nanoTime() - openUntilNanos >= 0;
+        synchronized (this) {
+            return probesIssued < probeCalls;
+        }
+    }
+
+    /** Whether the breaker is waiting for probes and still has a slot for one. */
+    boolean awaitsProbe() {
+        return enabled && state != CLOSED && isCallPermitted();
+    }
+
+    /** Takes a probe slot when half-open; must be called for the processor a call is actually sent to. */
+    synchronized boolean tryAcquire() {
+        if (!enabled || state == CLOSED) return true;
+
+        if (state == OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) return false;
+            toHalfOpen();
+        }
+
+        if (probesIssued >= probeCalls) return false;
+        probesIssued++;
+        return true;
+    }
+
+    /** Returns true when this response closed the breaker. */
+    synchronized boolean recordResponse(int status, long latencyNanos) {
+        int before = state;
+        record(status >= 500 || status == 429 || latencyNanos > slowCallNanos);
+        return before != CLOSED && state == CLOSED;
+    }
+
+    synchronized void recordFailure() {
+        record(true);
+    }
+
+    /**
+     * A healthy poll shortens the open period: the next call becomes a probe. When half-open, it hands back
+     * the slots of probes that never reported, so a lost probe cannot hold the breaker half-open for good.
+     */
+    synchronized void recordHealthy() {
+        if (!enabled) return;
+
+        if (state == OPEN) {
+            toHalfOpen();
+        } else if (state == HALF_OPEN) {
+            probesIssued = probesSucceeded;
+        }
+    }
+
+    private void record(boolean bad) {
+        if (!enabled) return;
+
+        if (state == HALF_OPEN) {
+            if (bad) {
+                open();
+            } else if (++probesSucceeded >= probeCalls) {
+                close();
+            }
+            return;
+        }
+
+        if (state == OPEN) return;
+
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) windowBad--;
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = bad;
+        if (bad) windowBad++;
+        windowIndex = (windowIndex + 1) % window.length;
+
+        consecutiveFailures = bad ? consecutiveFailures + 1 : 0;
+        if (consecutiveFailures >= consecutiveFailureLimit
+                || (windowCalls >= minCalls && windowBad >= failureRate * windowCalls)) {
+            open();
+        }
+    }
+
+    private void open() {
+        trips++;
+        openUntilNanos = System.nanoTime() + openNanos;
+        state = OPEN;
+    }
+
+    private void toHalfOpen() {
+        probesIssued = 0;
+        probesSucceeded = 0;
+        state = HALF_OPEN;
+    }
+
+    private void close() {
+        windowIndex = 0;
+        windowCalls = 0;
+        windowBad = 0;
+        consecutiveFailures = 0;
+        state = CLOSED;
+    }
+}
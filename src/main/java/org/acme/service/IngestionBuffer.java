@@ -0,0 +1,169 @@
+package org.acme.service;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.acme.utils.MpscRing;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects encoded payments from request threads in a lock-free ring and pushes them to the queue in
+ * batches of up to flush-size, at most flush-interval-us after the first of them arrived. Request threads
+ * only CAS into the ring; they wake the flusher only when it is parked, which it does only with nothing
+ * left to take.
+ */
+@Startup
+@ApplicationScoped
+public class IngestionBuffer {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private ExecutorService executor;
+    private volatile boolean running;
+    private volatile int lastFlushSize;
+    private volatile long lastFlushMicros;
+    private volatile Thread parkedFlusher;
+
+    private final PaymentRepository paymentRepository;
+    private final AdmissionControl admissionControl;
+    private final MpscRing<byte[]> ring;
+    private final boolean enabled;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final LongAdder flushes;
+    private final LongAdder flushedItems;
+    private final LongAdder flushFailures;
+
+    public IngestionBuffer(
+            final PaymentRepository paymentRepository,
+            final AdmissionControl admissionControl,
+            final MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-ingestion.buffered") boolean enabled,
+            @ConfigProperty(name = "payment-ingestion.capacity") int capacity,
+            @ConfigProperty(name = "payment-ingestion.flush-size") int flushSize,
+            @ConfigProperty(name = "payment-ingestion.flush-interval-us") long flushIntervalMicros
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.admissionControl = admissionControl;
+        this.enabled = enabled;
+        this.ring = new MpscRing<>(capacity);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros);
+        this.flushes = metricsRegistry.counter("ingestion.flushes");
+        this.flushedItems = metricsRegistry.counter("ingestion.flushed-items");
+        this.flushFailures = metricsRegistry.counter("ingestion.flush-failures");
+
+        metricsRegistry.gauge("ingestion.queue-depth", ring::size);
+        metricsRegistry.gauge("ingestion.last-flush-size", () -> lastFlushSize);
+        metricsRegistry.gauge("ingestion.last-flush-latency-us", () -> lastFlushMicros);
+    }
+
+    @PostConstruct
+    void initFlusher() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        executor.submit(this::flushLoop);
+    }
+
+    @PreDestroy
+    void shutdownFlusher() {
+        running = false;
+        if (executor != null) executor.shutdown();
+    }
+
+    public boolean offer(PaymentQueueItens payment) {
+        if (!running || !ring.offer(paymentRepository.encodeQueueItem(payment))) {
+            return false;
+        }
+
+        Thread flusher = parkedFlusher;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    private void flushLoop() {
+        List<byte[]> batch = new ArrayList<>(flushSize);
+        while (running || !ring.isEmpty()) {
+            try {
+                if (ring.drainTo(batch, flushSize) == 0) {
+                    awaitOffer(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < flushSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    if (ring.drainTo(batch, flushSize - batch.size()) == 0) {
+                        awaitOffer(remaining);
+                    }
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parks until a producer unparks it or the timeout passes. The flusher is published before the ring is
+     * checked again, and a producer publishes its entry before reading the flusher, so an offer landing in
+     * between is either seen here or unparks the park that follows.
+     */
+    private void awaitOffer(long timeoutNanos) throws InterruptedException {
+        parkedFlusher = Thread.currentThread();
+        try {
+            if (ring.isEmpty()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            parkedFlusher = null;
+        }
+
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private void flush(List<byte[]> batch) throws InterruptedException {
+        long start = System.nanoTime();
+        while (true) {
+            try {
+                paymentRepository.enqueueEncoded(batch);
+                admissionControl.recordEnqueueSuccess();
+                break;
+            } catch (Exception e) {
+                flushFailures.increment();
+                admissionControl.recordEnqueueFailure();
+                if (!running) return;
+                Thread.sleep(100);
+            }
+        }
+
+        lastFlushSize = batch.size();
+        lastFlushMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        flushes.increment();
+        flushedItems.add(batch.size());
+    }
+}
@@ -0,0 +1,88 @@
+package org.acme.service;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.acme.utils.BloomFilter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node-local Bloom filter in front of the authoritative payment_state hash in Redis, which is only
+ * read when the filter reports a probable hit.
+ */
+@ApplicationScoped
+public class PaymentDeduplicator {
+
+    public static final String SETTLED = "settled";
+
+    private final PaymentRepository paymentRepository;
+    private final BloomFilter seen;
+    private final boolean enabled;
+    private final LongAdder probableHits;
+
+    @Inject
+    public PaymentDeduplicator(
+            PaymentRepository paymentRepository,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-dedup.enabled") boolean enabled,
+            @ConfigProperty(name = "payment-dedup.expected-items") long expectedItems,
+            @ConfigProperty(name = "payment-dedup.false-positive-rate") double falsePositiveRate
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.enabled = enabled;
+        this.seen = enabled ? new BloomFilter(expectedItems, falsePositiveRate) : null;
+        this.probableHits = metricsRegistry.counter("payment-dedup.probable-hits");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String knownState(String correlationId) {
+        return enabled ? knownState(UUID.fromString(correlationId)) : null;
+    }
+
+    public String knownState(UUID correlationId) {
+        if (!enabled || !seen.mightContain(correlationId)) {
+            return null;
+        }
+
+        probableHits.increment();
+        return paymentRepository.getPaymentState(correlationId.toString());
+    }
+
+    public void remember(String correlationId) {
+        if (enabled) {
+            seen.put(UUID.fromString(correlationId));
+        }
+    }
+
+    public void remember(UUID correlationId) {
+        if (enabled) {
+            seen.put(correlationId);
+        }
+    }
+
+    public void markInFlight(String correlationId, String processor) {
+        if (!enabled) {
+            return;
+        }
+
+        remember(correlationId);
+        paymentRepository.markInFlight(correlationId, processor);
+    }
+
+    public Uni<Void> markInFlightAsync(String correlationId, String processor) {
+        if (!enabled) {
+            return Uni.createFrom().voidItem();
+        }
+
+        remember(correlationId);
+        return paymentRepository.markInFlightAsync(correlationId, processor);
+    }
+}
@@ -1,116 +1,343 @@
 package org.acme.service;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.acme.dto.HealthCheckResponseDTO;
-import org.acme.dto.PaymentRequestDTO;
+import org.acme.dto.ProcessorHealthSnapshotDTO;
 import org.acme.entity.Payment;
 import org.acme.entity.PaymentQueueItens;
+import org.acme.entity.PaymentTotals;
 import org.acme.entity.PaymentsSummaryResponse;
-import org.acme.entity.ProcessorSummary;
+import org.acme.metrics.CallMetrics;
+import org.acme.metrics.LatencyHistogram;
+import org.acme.metrics.MetricsRegistry;
 import org.acme.repository.processors.PaymentProcessorDefault;
 import org.acme.repository.processors.PaymentProcessorFallback;
-import org.acme.repository.redis.RedisRepository;
-import org.acme.repository.redis.dbo.PaymentDBO;
+import org.acme.repository.PaymentRepository;
+import org.acme.utils.AmountUtils;
 import org.acme.utils.DateUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.resteasy.reactive.RestResponse;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 @ApplicationScoped
 public class PaymentsService {
 
-    private final String DEFAULT = "default";
-    private final String FALLBACK = "fallback";
+    private final String DEFAULT = ProcessorRouter.DEFAULT;
+    private final String FALLBACK = ProcessorRouter.FALLBACK;
 
-    private final AtomicReference<String> activeProcessor = new AtomicReference<>(DEFAULT);
-    private final RedisRepository redisRepository;
+    private final ProcessorRouter processorRouter;
+    private final PaymentDeduplicator deduplicator;
+    private final SummaryCache summaryCache;
+    private final PaymentRepository paymentRepository;
     private final PaymentProcessorDefault paymentProcessorDefault;
     private final PaymentProcessorFallback paymentProcessorFallback;
+    private final boolean summaryAggregate;
+    private final boolean retryEnabled;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final LongAdder retriesScheduled;
+    private final LongAdder duplicatesDropped;
+    private final LongAdder duplicatesResolved;
+    private final LongAdder requeued;
+    private final LatencyHistogram dequeueWait;
+    private final LatencyHistogram summaryLatency;
+    private final CallMetrics defaultCalls;
+    private final CallMetrics fallbackCalls;
+    private final MetricsRegistry metricsRegistry;
 
     @Inject
     public PaymentsService(
-            RedisRepository redisRepository,
+            ProcessorRouter processorRouter,
+            PaymentDeduplicator deduplicator,
+            SummaryCache summaryCache,
+            PaymentRepository paymentRepository,
             @RestClient PaymentProcessorDefault paymentProcessorDefault,
-            @RestClient PaymentProcessorFallback paymentProcessorFallback
+            @RestClient PaymentProcessorFallback paymentProcessorFallback,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-summary.aggregate") boolean summaryAggregate,
+            @ConfigProperty(name = "payment-retry.enabled") boolean retryEnabled,
+            @ConfigProperty(name = "payment-retry.base-delay-ms") long retryBaseDelayMs,
+            @ConfigProperty(name = "payment-retry.max-delay-ms") long retryMaxDelayMs
     ) {
-        this.redisRepository = redisRepository;
+        this.processorRouter = processorRouter;
+        this.deduplicator = deduplicator;
+        this.summaryCache = summaryCache;
+        this.paymentRepository = paymentRepository;
         this.paymentProcessorDefault = paymentProcessorDefault;
         this.paymentProcessorFallback = paymentProcessorFallback;
+        this.summaryAggregate = summaryAggregate;
+        this.retryEnabled = retryEnabled;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+        this.retriesScheduled = metricsRegistry.counter("payment-retry.scheduled");
+        this.duplicatesDropped = metricsRegistry.counter("payment-dedup.dropped");
+        this.duplicatesResolved = metricsRegistry.counter("payment-dedup.resolved");
+        this.requeued = metricsRegistry.counter("payment.requeued");
+        this.dequeueWait = metricsRegistry.histogram("queue.dequeue-wait");
+        this.summaryLatency = metricsRegistry.histogram("summary.latency");
+        this.defaultCalls = metricsRegistry.calls("processor." + DEFAULT);
+        this.fallbackCalls = metricsRegistry.calls("processor." + FALLBACK);
+        this.metricsRegistry = metricsRegistry;
+
+        metricsRegistry.gauge("queue.depth", paymentRepository::queueDepth);
     }
 
 
     public PaymentsSummaryResponse getPaymentsSummary(String from, String to) {
+        long start = System.nanoTime();
         Long fromMilli = DateUtils.parseIsoUtcToEpochMilli(from);
         Long toMilli = DateUtils.parseIsoUtcToEpochMilli(to);
 
-        List<PaymentDBO> payments = redisRepository.getPayments(fromMilli, toMilli);
+        try {
+            if (summaryCache.isEnabled()) {
+                return summaryCache.get(fromMilli, toMilli, paymentRepository.getLedgerEpoch(), this::getTotals).toResponse();
+            }
 
-        ProcessorSummary summarizedDefault = summarizeProcessors(payments, DEFAULT);
-        ProcessorSummary summarizedFallback = summarizeProcessors(payments, FALLBACK);
+            return getTotals(fromMilli, toMilli).toResponse();
+        } finally {
+            summaryLatency.recordSince(start);
+        }
+    }
+
+    public void enqueuePayment(final PaymentQueueItens payment) {
+        paymentRepository.enqueue(payment);
+    }
 
-        return new PaymentsSummaryResponse(summarizedDefault, summarizedFallback);
+    public Uni<Void> enqueuePaymentAsync(final PaymentQueueItens payment) {
+        return paymentRepository.enqueueAsync(payment);
     }
 
-    public void enqueuePayment(final PaymentRequestDTO payment) {
-        redisRepository.enqueue(payment);
+    public boolean isDuplicatePayment(PaymentQueueItens payment) {
+        if (!deduplicator.isEnabled()) {
+            return false;
+        }
+
+        if (deduplicator.knownState(payment.correlationId()) != null) {
+            duplicatesDropped.increment();
+            return true;
+        }
+
+        deduplicator.remember(payment.correlationId());
+        return false;
+    }
+
+    public boolean resolveDuplicate(String correlationId, BigDecimal amount) {
+        String state = deduplicator.knownState(correlationId);
+        if (state == null) {
+            return false;
+        }
+
+        if (PaymentDeduplicator.SETTLED.equals(state)) {
+            duplicatesDropped.increment();
+            return true;
+        }
+
+        return settleFromProcessor(correlationId, amount, state);
     }
 
     public PaymentQueueItens dequeuePayment() {
-        return redisRepository.dequeue();
+        long start = System.nanoTime();
+        PaymentQueueItens item = paymentRepository.dequeue();
+        dequeueWait.recordSince(start);
+        return item;
+    }
+
+    public List<PaymentQueueItens> dequeuePayments(int maxItems) {
+        long start = System.nanoTime();
+        List<PaymentQueueItens> items = paymentRepository.dequeueBatch(maxItems);
+        dequeueWait.recordSince(start);
+        return items;
     }
 
     public void processPayment(Payment payment) {
-        if(activeProcessor.get().equals(DEFAULT)) {
-            RestResponse<Void> response =  paymentProcessorDefault.processPayment(payment);
-            handlePaymentResponse(response, payment, DEFAULT);
-            return;
+        String processor = dispatchPayment(payment);
+        if (processor != null) {
+            paymentRepository.savePayment(payment, processor);
+        }
+    }
+
+    public String dispatchPayment(Payment payment) {
+        if (resolveDuplicate(payment.correlationId(), payment.amount())) {
+            return null;
+        }
+
+        String processor = processorRouter.choose();
+
+        if (ProcessorRouter.NONE.equals(processor)) {
+            requeuePayment(payment);
+            return null;
+        }
+
+        long start = System.nanoTime();
+        RestResponse<Void> response;
+        try {
+            response = DEFAULT.equals(processor)
+                    ? paymentProcessorDefault.processPayment(payment)
+                    : paymentProcessorFallback.processPayment(payment);
+        } catch (RuntimeException e) {
+            processorRouter.recordFailure(processor, System.nanoTime() - start);
+            callsFor(processor).recordFailure(e, start);
+            deduplicator.markInFlight(payment.correlationId(), processor);
+            throw e;
+        }
+
+        processorRouter.recordResponse(processor, System.nanoTime() - start, response.getStatus());
+        callsFor(processor).recordResponse(response.getStatus(), start);
+        if (response.getStatus() == 422 && deduplicator.isEnabled()
+                && settleFromProcessor(payment.correlationId(), payment.amount(), processor)) {
+            return null;
+        }
+
+        return handlePaymentResponse(response, payment, processor);
+    }
+
+    public Uni<String> dispatchPaymentAsync(Payment payment) {
+        String processor = processorRouter.choose();
+
+        if (ProcessorRouter.NONE.equals(processor)) {
+            return requeuePaymentAsync(payment).replaceWith((String) null);
         }
 
-        if(activeProcessor.get().equals(FALLBACK)) {
-            RestResponse<Void> response = paymentProcessorFallback.processPayment(payment);
-            handlePaymentResponse(response, payment, FALLBACK);
+        long start = System.nanoTime();
+        Uni<RestResponse<Void>> call = DEFAULT.equals(processor)
+                ? paymentProcessorDefault.processPaymentAsync(payment)
+                : paymentProcessorFallback.processPaymentAsync(payment);
+
+        return call
+                .onFailure().invoke(e -> {
+                    processorRouter.recordFailure(processor, System.nanoTime() - start);
+                    callsFor(processor).recordFailure(e, start);
+                })
+                .onFailure().call(e -> deduplicator.markInFlightAsync(payment.correlationId(), processor))
+                .onItem().transformToUni(response -> {
+                    boolean accepted = response.getStatus() == 200;
+                    processorRouter.recordResponse(processor, System.nanoTime() - start, response.getStatus());
+                    callsFor(processor).recordResponse(response.getStatus(), start);
+                    if (accepted) {
+                        deduplicator.remember(payment.correlationId());
+                        return Uni.createFrom().item(processor);
+                    }
+
+                    Uni<Void> marked = response.getStatus() == 422
+                            ? deduplicator.markInFlightAsync(payment.correlationId(), processor)
+                            : Uni.createFrom().voidItem();
+                    return marked.chain(() -> requeuePaymentAsync(payment)).replaceWith((String) null);
+                });
+    }
+
+    public Uni<Void> requeuePaymentAsync(Payment payment) {
+        PaymentQueueItens request = toQueueItem(payment);
+        if (!retryEnabled) {
+            requeued.increment();
+            return paymentRepository.enqueueAsync(request);
+        }
+
+        retriesScheduled.increment();
+        return paymentRepository.scheduleRetryAsync(request, retryBaseDelayMs, retryMaxDelayMs);
+    }
+
+    public Uni<Void> savePaymentsAsync(Map<String, List<Payment>> paymentsByProcessor) {
+        return paymentRepository.savePaymentsAsync(paymentsByProcessor);
+    }
+
+    public void requeuePayment(Payment payment) {
+        PaymentQueueItens request = toQueueItem(payment);
+        if (!retryEnabled) {
+            requeued.increment();
+            paymentRepository.enqueue(request);
             return;
         }
 
-        redisRepository.enqueue(new PaymentRequestDTO(payment.correlationId(), payment.amount()));
+        retriesScheduled.increment();
+        paymentRepository.scheduleRetry(request, retryBaseDelayMs, retryMaxDelayMs);
+    }
+
+    public int promoteDueRetries(int maxItems) {
+        return paymentRepository.promoteDueRetries(maxItems);
+    }
+
+    public void savePayments(Map<String, List<Payment>> paymentsByProcessor) {
+        paymentRepository.savePayments(paymentsByProcessor);
     }
 
     public void checkProcessorsHealth() {
-        RestResponse<HealthCheckResponseDTO> healthDefault = paymentProcessorDefault.healthCheck();
-        if (healthDefault.getEntity() != null && !healthDefault.getEntity().failing()) {
-            activeProcessor.set("default");
-            return;
+        applyProcessorsHealth(probeProcessorsHealth());
+    }
+
+    public ProcessorHealthSnapshotDTO probeProcessorsHealth() {
+        return new ProcessorHealthSnapshotDTO(
+                toHealth(DEFAULT, paymentProcessorDefault.healthCheck()),
+                toHealth(FALLBACK, paymentProcessorFallback.healthCheck()),
+                System.currentTimeMillis(),
+                0
+        );
+    }
+
+    public void applyProcessorsHealth(ProcessorHealthSnapshotDTO snapshot) {
+        if (snapshot.defaultHealth() != null) {
+            processorRouter.recordHealth(DEFAULT, snapshot.defaultHealth());
         }
 
-        RestResponse<HealthCheckResponseDTO> healthFallback = paymentProcessorFallback.healthCheck();
-        if (healthFallback.getEntity() != null && !healthFallback.getEntity().failing()) {
-            activeProcessor.set("fallback");
-            return;
+        if (snapshot.fallbackHealth() != null) {
+            processorRouter.recordHealth(FALLBACK, snapshot.fallbackHealth());
         }
+    }
 
-        activeProcessor.set("none");
+    private PaymentTotals getTotals(Long from, Long to) {
+        return summaryAggregate
+                ? paymentRepository.getAggregatedTotals(from, to)
+                : paymentRepository.getTotals(from, to);
     }
 
-    private void handlePaymentResponse(RestResponse<Void> response, Payment payment, String processor) {
-        if (response.getStatus() == 200) {
-            redisRepository.savePayment(payment, processor);
-        } else {
-            redisRepository.enqueue(new PaymentRequestDTO(payment.correlationId(), payment.amount()));
+    private HealthCheckResponseDTO toHealth(String processor, RestResponse<HealthCheckResponseDTO> response) {
+        if (response.getStatus() == 429) {
+            metricsRegistry.counter("health-check." + processor + ".rate-limited").increment();
+            return null;
         }
+
+        HealthCheckResponseDTO health = response.getEntity() != null ? response.getEntity() : new HealthCheckResponseDTO(true, 0);
+        metricsRegistry.counter("health-check." + processor + (health.failing() ? ".failing" : ".healthy")).increment();
+        return health;
+    }
+
+    private CallMetrics callsFor(String processor) {
+        return DEFAULT.equals(processor) ? defaultCalls : fallbackCalls;
     }
 
-    private ProcessorSummary summarizeProcessors (List<PaymentDBO> payments, String processor) {
-        List<PaymentDBO> paymentsByProcessor = payments.stream()
-                .filter(payment -> processor.equals(payment.getProcessor())).toList();
+    private PaymentQueueItens toQueueItem(Payment payment) {
+        return new PaymentQueueItens(UUID.fromString(payment.correlationId()), AmountUtils.toCents(payment.amount()));
+    }
+
+    private boolean settleFromProcessor(String correlationId, BigDecimal amount, String processor) {
+        RestResponse<Payment> response = DEFAULT.equals(processor)
+                ? paymentProcessorDefault.getPayment(correlationId)
+                : paymentProcessorFallback.getPayment(correlationId);
+
+        if (response.getStatus() != 200 || response.getEntity() == null) {
+            return false;
+        }
 
-        BigDecimal totalAmount = paymentsByProcessor.stream()
-                .map(PaymentDBO::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        paymentRepository.savePayment(new Payment(correlationId, amount, response.getEntity().requestedAt()), processor);
+        deduplicator.remember(correlationId);
+        duplicatesResolved.increment();
+        return true;
+    }
+
+    private String handlePaymentResponse(RestResponse<Void> response, Payment payment, String processor) {
+        if (response.getStatus() == 200) {
+            deduplicator.remember(payment.correlationId());
+            return processor;
+        }
 
-        return new ProcessorSummary(paymentsByProcessor.size(), totalAmount);
+        requeuePayment(payment);
+        return null;
     }
 }
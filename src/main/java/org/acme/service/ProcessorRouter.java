@@ -0,0 +1,179 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.dto.HealthCheckResponseDTO;
+import org.acme.metrics.MetricsRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+@ApplicationScoped
+public class ProcessorRouter {
+
+    public static final String DEFAULT = "default";
+    public static final String FALLBACK = "fallback";
+    public static final String NONE = "none";
+
+    private static final double MIN_SUCCESS_RATE = 0.01;
+
+    private final ProcessorStats defaultStats;
+    private final ProcessorStats fallbackStats;
+    private final CircuitBreaker defaultBreaker;
+    private final CircuitBreaker fallbackBreaker;
+    private final double fallbackFactor;
+    private final double alpha;
+
+    @Inject
+    public ProcessorRouter(
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-router.fallback-factor") double fallbackFactor,
+            @ConfigProperty(name = "payment-router.ewma-alpha") double alpha,
+            @ConfigProperty(name = "payment-router.stats-half-life-ms") long statsHalfLifeMs,
+            @ConfigProperty(name = "payment-router.breaker.enabled") boolean breakerEnabled,
+            @ConfigProperty(name = "payment-router.breaker.window") int breakerWindow,
+            @ConfigProperty(name = "payment-router.breaker.min-calls") int breakerMinCalls,
+            @ConfigProperty(name = "payment-router.breaker.failure-rate") double breakerFailureRate,
+            @ConfigProperty(name = "payment-router.breaker.consecutive-failures") int breakerConsecutiveFailures,
+            @ConfigProperty(name = "payment-router.breaker.slow-call-ms") long breakerSlowCallMs,
+            @ConfigProperty(name = "payment-router.breaker.open-ms") long breakerOpenMs,
+            @ConfigProperty(name = "payment-router.breaker.probe-calls") int breakerProbeCalls
+    ) {
+        this.fallbackFactor = fallbackFactor;
+        this.alpha = alpha;
+        this.defaultStats = new ProcessorStats(statsHalfLifeMs * 1_000_000);
+        this.fallbackStats = new ProcessorStats(statsHalfLifeMs * 1_000_000);
+        this.defaultBreaker = new CircuitBreaker(breakerEnabled, breakerWindow, breakerMinCalls, breakerFailureRate,
+                breakerConsecutiveFailures, breakerSlowCallMs, breakerOpenMs, breakerProbeCalls);
+        this.fallbackBreaker = new CircuitBreaker(breakerEnabled, breakerWindow, breakerMinCalls, breakerFailureRate,
+                breakerConsecutiveFailures, breakerSlowCallMs, breakerOpenMs, breakerProbeCalls);
+
+        metricsRegistry.gauge("payment-router.default.latency-ms", () -> defaultStats.latencyMs);
+        metricsRegistry.gauge("payment-router.default.success-rate", () -> defaultStats.successRate);
+        metricsRegistry.gauge("payment-router.fallback.latency-ms", () -> fallbackStats.latencyMs);
+        metricsRegistry.gauge("payment-router.fallback.success-rate", () -> fallbackStats.successRate);
+        metricsRegistry.gauge("payment-router.default.breaker-state", defaultBreaker::state);
+        metricsRegistry.gauge("payment-router.default.breaker-trips", defaultBreaker::trips);
+        metricsRegistry.gauge("payment-router.fallback.breaker-state", fallbackBreaker::state);
+        metricsRegistry.gauge("payment-router.fallback.breaker-trips", fallbackBreaker::trips);
+    }
+
+    public String choose() {
+        boolean defaultAvailable = !defaultStats.failing && defaultBreaker.isCallPermitted();
+        boolean fallbackAvailable = !fallbackStats.failing && fallbackBreaker.isCallPermitted();
+
+        String preferred;
+        if (defaultAvailable && defaultBreaker.awaitsProbe()) {
+            preferred = DEFAULT;
+        } else if (fallbackAvailable && fallbackBreaker.awaitsProbe()) {
+            preferred = FALLBACK;
+        } else if (defaultAvailable && fallbackAvailable) {
+            preferred = defaultStats.expectedCost() > fallbackStats.expectedCost() * fallbackFactor ? FALLBACK : DEFAULT;
+        } else if (defaultAvailable) {
+            preferred = DEFAULT;
+        } else if (fallbackAvailable) {
+            preferred = FALLBACK;
+        } else {
+            return NONE;
+        }
+
+        // a half-open breaker only has a few probe slots, so the pick is confirmed by taking one
+        if (breakerFor(preferred).tryAcquire()) return preferred;
+
+        String other = DEFAULT.equals(preferred) ? FALLBACK : DEFAULT;
+        boolean otherAvailable = DEFAULT.equals(other) ? defaultAvailable : fallbackAvailable;
+        return otherAvailable && breakerFor(other).tryAcquire() ? other : NONE;
+    }
+
+    public void recordResponse(String processor, long latencyNanos, int status) {
+        ProcessorStats stats = statsFor(processor);
+        stats.recordCall(latencyNanos / 1_000_000d, status == 200, alpha);
+        if (breakerFor(processor).recordResponse(status, latencyNanos)) {
+            // the averages still carry the run that opened the breaker
+            stats.reset();
+        }
+    }
+
+    public void recordFailure(String processor, long latencyNanos) {
+        statsFor(processor).recordCall(latencyNanos / 1_000_000d, false, alpha);
+        breakerFor(processor).recordFailure();
+    }
+
+    public void recordHealth(String processor, HealthCheckResponseDTO health) {
+        ProcessorStats stats = statsFor(processor);
+        if (health == null) {
+            stats.failing = true;
+            return;
+        }
+
+        boolean recovered = stats.failing && !health.failing();
+        stats.minResponseTime = health.minResponseTime();
+        stats.failing = health.failing();
+        if (recovered) {
+            stats.reset();
+        }
+        if (!health.failing()) {
+            breakerFor(processor).recordHealthy();
+        }
+    }
+
+    private ProcessorStats statsFor(String processor) {
+        return DEFAULT.equals(processor) ? defaultStats : fallbackStats;
+    }
+
+    private CircuitBreaker breakerFor(String processor) {
+        return DEFAULT.equals(processor) ? defaultBreaker : fallbackBreaker;
+    }
+
+    /**
+     * Call outcomes only arrive for the processor that gets traffic, so a bad run would otherwise keep a
+     * processor's cost high forever once routing stops picking it. The deviation from neutral (success rate 1,
+     * latency at the reported minimum) therefore halves every stats-half-life-ms without calls, and a
+     * processor whose health check stops reporting it as failing starts over from neutral.
+     */
+    private static final class ProcessorStats {
+        private final long halfLifeNanos;
+        private volatile boolean failing;
+        private volatile int minResponseTime;
+        private volatile double latencyMs;
+        private volatile double successRate = 1.0;
+        private volatile long lastCallNanos = System.nanoTime();
+
+        private ProcessorStats(long halfLifeNanos) {
+            this.halfLifeNanos = halfLifeNanos;
+        }
+
+        private synchronized void recordCall(double callLatencyMs, boolean success, double alpha) {
+            long now = System.nanoTime();
+            double weight = weight(now);
+            double latency = decayedLatency(weight);
+            double rate = decayedSuccessRate(weight);
+            latencyMs = latency == 0 ? callLatencyMs : latency + alpha * (callLatencyMs - latency);
+            successRate = rate + alpha * ((success ? 1.0 : 0.0) - rate);
+            lastCallNanos = now;
+        }
+
+        private synchronized void reset() {
+            latencyMs = 0;
+            successRate = 1.0;
+            lastCallNanos = System.nanoTime();
+        }
+
+        private double expectedCost() {
+            double weight = weight(System.nanoTime());
+            double latency = Math.max(1.0, Math.max(decayedLatency(weight), minResponseTime));
+            return latency / Math.max(MIN_SUCCESS_RATE, decayedSuccessRate(weight));
+        }
+
+        private double weight(long now) {
+            return halfLifeNanos <= 0 ? 1.0 : Math.pow(0.5, (double) (now - lastCallNanos) / halfLifeNanos);
+        }
+
+        private double decayedLatency(double weight) {
+            double current = latencyMs;
+            return current == 0 ? 0 : minResponseTime + (current - minResponseTime) * weight;
+        }
+
+        private double decayedSuccessRate(double weight) {
+            return 1.0 - (1.0 - successRate) * weight;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.acme.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.json.bind.Jsonb;
+import org.acme.entity.Payment;
+import org.acme.entity.PaymentQueueItens;
+import org.acme.entity.PaymentTotals;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.acme.repository.processors.PaymentProcessorDefault;
+import org.acme.repository.processors.PaymentProcessorFallback;
+import org.acme.repository.redis.codec.QueueRecordCodec;
+import org.acme.utils.AmountUtils;
+import org.acme.utils.DateUtils;
+import org.acme.utils.PaymentRequestParser;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs before the node reports ready on /q/health/ready: opens Redis and processor connections up to
+ * warmup.connections, drives the parse/encode/summary paths warmup.iterations times so they are compiled
+ * before real traffic, and on worker nodes probes processor health once so routing does not start blind.
+ */
+@Readiness
+@ApplicationScoped
+public class StartupWarmup implements HealthCheck {
+
+    private static final long WARMUP_EPOCH_MILLI = 946684800000L;
+
+    private final PaymentsService paymentsService;
+    private final PaymentRepository paymentRepository;
+    private final PaymentProcessorDefault paymentProcessorDefault;
+    private final PaymentProcessorFallback paymentProcessorFallback;
+    private final ObjectMapper objectMapper;
+    private final Jsonb jsonb;
+    private final String serviceType;
+    private final boolean enabled;
+    private final boolean coordinatedHealth;
+    private final int iterations;
+    private final int connections;
+    private volatile boolean ready;
+    private volatile long durationMs = -1;
+
+    public StartupWarmup(
+            PaymentsService paymentsService,
+            PaymentRepository paymentRepository,
+            @RestClient PaymentProcessorDefault paymentProcessorDefault,
+            @RestClient PaymentProcessorFallback paymentProcessorFallback,
+            ObjectMapper objectMapper,
+            Jsonb jsonb,
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "service.type") String serviceType,
+            @ConfigProperty(name = "warmup.enabled") boolean enabled,
+            @ConfigProperty(name = "warmup.iterations") int iterations,
+            @ConfigProperty(name = "warmup.connections") int connections,
+            @ConfigProperty(name = "health-check.coordinated") boolean coordinatedHealth
+    ) {
+        this.paymentsService = paymentsService;
+        this.paymentRepository = paymentRepository;
+        this.paymentProcessorDefault = paymentProcessorDefault;
+        this.paymentProcessorFallback = paymentProcessorFallback;
+        this.objectMapper = objectMapper;
+        this.jsonb = jsonb;
+        this.serviceType = serviceType;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.connections = connections;
+        this.coordinatedHealth = coordinatedHealth && !"embedded".equals(serviceType);
+
+        metricsRegistry.gauge("warmup.duration-ms", () -> durationMs);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            ready = true;
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean processesPayments = "worker".equals(serviceType) || "embedded".equals(serviceType);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                tasks.add(executor.submit(paymentRepository::isConnected));
+                if (processesPayments) {
+                    tasks.add(executor.submit(() -> paymentProcessorDefault.getPayment(UUID.randomUUID().toString())));
+                    tasks.add(executor.submit(() -> paymentProcessorFallback.getPayment(UUID.randomUUID().toString())));
+                }
+            }
+            await(tasks);
+        }
+
+        if (processesPayments && !coordinatedHealth) {
+            run(paymentsService::checkProcessorsHealth);
+        }
+        run(this::warmCodecs);
+        if (!"worker".equals(serviceType)) {
+            run(this::warmSummary);
+        }
+
+        durationMs = (System.nanoTime() - start) / 1_000_000;
+        ready = true;
+    }
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("warmup")
+                .status(ready)
+                .withData("duration-ms", durationMs)
+                .build();
+    }
+
+    private void warmCodecs() throws Exception {
+        byte[] canonical = "{\"correlationId\":\"4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3\",\"amount\":19.90}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] nonCanonical = "{ \"amount\": 19.9, \"correlationId\": \"4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3\" }"
+                .getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < iterations; i++) {
+            PaymentQueueItens item = PaymentRequestParser.read(canonical, objectMapper);
+            PaymentRequestParser.read(nonCanonical, objectMapper);
+            QueueRecordCodec.decode(QueueRecordCodec.encode(item));
+            QueueRecordCodec.decode(QueueRecordCodec.encodeText(item));
+
+            String requestedAt = DateUtils.formatEpochMilli(WARMUP_EPOCH_MILLI + i);
+            DateUtils.parseIsoUtcToEpochMilli(requestedAt);
+            objectMapper.writeValueAsBytes(new Payment(item.correlationId().toString(), item.amount(), requestedAt));
+
+            PaymentTotals totals = new PaymentTotals();
+            totals.add(i % 2 == 0 ? "default" : "fallback", 1, AmountUtils.toCents(item.amount()));
+            jsonb.toJson(totals.toResponse());
+        }
+    }
+
+    private void warmSummary() {
+        String from = DateUtils.formatEpochMilli(WARMUP_EPOCH_MILLI);
+        String to = DateUtils.formatEpochMilli(WARMUP_EPOCH_MILLI + 1000);
+        for (int i = 0; i < Math.max(1, iterations / 100); i++) {
+            jsonb.toJson(paymentsService.getPaymentsSummary(from, to));
+        }
+    }
+
+    private static void await(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (Exception ignored) {
+                // an unreachable processor or Redis must not keep the node from starting
+            }
+        }
+    }
+
+    private static void run(WarmupStep warmupStep) {
+        try {
+            warmupStep.run();
+        } catch (Exception ignored) {
+            // warm-up is best effort; the node still becomes ready
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
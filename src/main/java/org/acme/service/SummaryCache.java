@@ -0,0 +1,102 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.entity.PaymentTotals;
+import org.acme.metrics.MetricsRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Per-node LRU of summary totals keyed by the requested range. An entry covers the range only up to its
+ * watermark, a point at least payment-summary.stable-lag-ms in the past that no settle is expected to land
+ * behind. Later queries fold in just the slice between the old and the new watermark; the part after the
+ * watermark is always read live. A settle that does land behind the lag bumps the ledger epoch, which
+ * drops every entry, so results stay exact.
+ */
+@ApplicationScoped
+public class SummaryCache {
+
+    private final int maxEntries;
+    private final long stableLagMs;
+    private final Map<Range, Entry> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder refreshes;
+    private long epoch = -1;
+
+    public SummaryCache(
+            MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "payment-summary.cache-size") int maxEntries,
+            @ConfigProperty(name = "payment-summary.stable-lag-ms") long stableLagMs
+    ) {
+        this.maxEntries = maxEntries;
+        this.stableLagMs = stableLagMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Range, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = metricsRegistry.counter("summary-cache.hits");
+        this.misses = metricsRegistry.counter("summary-cache.misses");
+        this.refreshes = metricsRegistry.counter("summary-cache.refreshes");
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    public PaymentTotals get(Long from, Long to, long ledgerEpoch, BiFunction<Long, Long, PaymentTotals> totals) {
+        long lower = from == null ? Long.MIN_VALUE : from;
+        long upper = to == null ? Long.MAX_VALUE : to;
+        long watermark = Math.min(upper, System.currentTimeMillis() - stableLagMs);
+        if (watermark < lower) {
+            return totals.apply(from, to);
+        }
+
+        Range range = new Range(from, to);
+        Entry entry;
+        synchronized (this) {
+            if (epoch != ledgerEpoch) {
+                entries.clear();
+                epoch = ledgerEpoch;
+            }
+            entry = entries.get(range);
+        }
+
+        PaymentTotals stable = new PaymentTotals();
+        if (entry == null) {
+            misses.increment();
+            stable.add(totals.apply(from, watermark));
+        } else if (entry.watermark() >= watermark) {
+            hits.increment();
+            stable.add(entry.totals());
+            watermark = entry.watermark();
+        } else {
+            refreshes.increment();
+            stable.add(entry.totals());
+            stable.add(totals.apply(entry.watermark() + 1, watermark));
+        }
+
+        synchronized (this) {
+            if (epoch == ledgerEpoch) {
+                entries.put(range, new Entry(stable, watermark));
+            }
+        }
+
+        PaymentTotals result = new PaymentTotals();
+        result.add(stable);
+        if (watermark < upper) {
+            result.add(totals.apply(watermark + 1, to));
+        }
+        return result;
+    }
+
+    private record Range(Long from, Long to) { }
+
+    private record Entry(PaymentTotals totals, long watermark) { }
+}
@@ -0,0 +1,20 @@
+package org.acme.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class AmountUtils {
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /** Like {@link #toCents} but throws {@link ArithmeticException} instead of rounding sub-cent amounts. */
+    public static long toCentsExact(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -1,15 +1,176 @@
 package org.acme.utils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
 
+/**
+ * UTC timestamps in the {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'} layout. Formatting reuses the date-and-second
+ * prefix of the last call and only rewrites the milliseconds; parsing handles that layout with arithmetic.
+ * Anything else goes through {@link #FORMATTER} and then the general ISO parser, so other offsets and
+ * precisions are still accepted.
+ */
 public final class DateUtils {
 
     public final static DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
 
+    public static final int LENGTH = 24;
+
+    private static final int PREFIX_LENGTH = 20;
+    private static final long SECONDS_PER_DAY = 86_400;
+    private static final int DAYS_0000_TO_1970 = 719_468;
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private static volatile SecondPrefix lastPrefix = new SecondPrefix(Long.MIN_VALUE, null);
+
+    private DateUtils() {
+    }
+
+    public static String formatEpochMilli(long epochMilli) {
+        byte[] out = new byte[LENGTH];
+        if (!writeEpochMilli(epochMilli, out, 0)) {
+            return FORMATTER.format(Instant.ofEpochMilli(epochMilli));
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes {@link #LENGTH} ASCII bytes at {@code offset}. Returns false, leaving the buffer untouched, for
+     * years outside 0001-9999.
+     */
+    public static boolean writeEpochMilli(long epochMilli, byte[] out, int offset) {
+        long second = Math.floorDiv(epochMilli, 1000);
+        int millis = Math.floorMod(epochMilli, 1000);
+
+        SecondPrefix prefix = lastPrefix;
+        if (prefix.second() != second) {
+            byte[] bytes = encodePrefix(second);
+            if (bytes == null) return false;
+            prefix = new SecondPrefix(second, bytes);
+            lastPrefix = prefix;
+        }
+
+        System.arraycopy(prefix.bytes(), 0, out, offset, PREFIX_LENGTH);
+        out[offset + 20] = (byte) ('0' + millis / 100);
+        out[offset + 21] = (byte) ('0' + millis / 10 % 10);
+        out[offset + 22] = (byte) ('0' + millis % 10);
+        out[offset + 23] = 'Z';
+        return true;
+    }
+
     public static Long parseIsoUtcToEpochMilli(String isoUtcString) {
         if (isoUtcString == null || isoUtcString.isBlank()) return null;
-        return Instant.from(FORMATTER.parse(isoUtcString)).toEpochMilli();
+
+        long epochMilli = parseCanonical(isoUtcString);
+        if (epochMilli != Long.MIN_VALUE) {
+            return epochMilli;
+        }
+        return parseLenient(isoUtcString);
+    }
+
+    private static long parseCanonical(String s) {
+        if (s.length() != LENGTH
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':' || s.charAt(16) != ':' || s.charAt(19) != '.' || s.charAt(23) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        int millis = digits(s, 20, 3);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        long seconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        return seconds * 1000 + millis;
     }
+
+    private static long parseLenient(String s) {
+        try {
+            return Instant.from(FORMATTER.parse(s)).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(s, ZonedDateTime::from, LocalDateTime::from);
+            return parsed instanceof ZonedDateTime zoned
+                    ? zoned.toInstant().toEpochMilli()
+                    : ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+    }
+
+    private static byte[] encodePrefix(long second) {
+        long days = Math.floorDiv(second, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(second, SECONDS_PER_DAY);
+
+        days += DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 1 || year > 9999) return null;
+
+        byte[] bytes = new byte[PREFIX_LENGTH];
+        writeDigits(bytes, 0, (int) year, 4);
+        bytes[4] = '-';
+        writeDigits(bytes, 5, month, 2);
+        bytes[7] = '-';
+        writeDigits(bytes, 8, day, 2);
+        bytes[10] = 'T';
+        writeDigits(bytes, 11, secondOfDay / 3600, 2);
+        bytes[13] = ':';
+        writeDigits(bytes, 14, secondOfDay / 60 % 60, 2);
+        bytes[16] = ':';
+        writeDigits(bytes, 17, secondOfDay % 60, 2);
+        bytes[19] = '.';
+        return bytes;
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void writeDigits(byte[] out, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private record SecondPrefix(long second, byte[] bytes) { }
 }
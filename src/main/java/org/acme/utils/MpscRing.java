@@ -0,0 +1,90 @@
+package org.acme.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring for many producers and one consumer, after Vyukov's bounded queue. Each slot carries
+ * a sequence number: a producer claims a position with one CAS on the tail and publishes its element by
+ * advancing the slot's sequence, and the consumer only reads slots whose sequence says they are published.
+ * Producers never wait on the consumer or on each other beyond the CAS; a full ring refuses the offer.
+ * poll and drainTo must only ever be called from one thread at a time.
+ */
+public final class MpscRing<E> {
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public MpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean offer(E element) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long gap = sequences.get(slot) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (gap < 0) {
+                return false;
+            }
+        }
+
+        elements.lazySet(slot, element);
+        sequences.set(slot, position + 1);
+        return true;
+    }
+
+    public E poll() {
+        long position = head.get();
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /** Claimed positions not yet consumed, so an offer still publishing already counts. */
+    public int size() {
+        long consumed = head.get();
+        return (int) Math.max(0, Math.min(tail.get() - consumed, capacity()));
+    }
+}
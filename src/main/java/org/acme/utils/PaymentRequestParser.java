@@ -0,0 +1,203 @@
+package org.acme.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.dto.PaymentRequestDTO;
+import org.acme.entity.PaymentQueueItens;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Scans a {@code {"correlationId": "...", "amount": ...}} body straight into a queue item. Only the
+ * canonical shape is handled here: a canonical UUID, a plain decimal with at most two fraction digits and
+ * no escapes or extra fields. Anything else returns null so the caller can fall back to full JSON binding,
+ * which takes other layouts of the same values but, like the scanner, refuses sub-cent amounts.
+ */
+public final class PaymentRequestParser {
+
+    private static final byte[] CORRELATION_ID = {'c', 'o', 'r', 'r', 'e', 'l', 'a', 't', 'i', 'o', 'n', 'I', 'd'};
+    private static final byte[] AMOUNT = {'a', 'm', 'o', 'u', 'n', 't'};
+    private static final int UUID_LENGTH = 36;
+    private static final int MAX_INTEGER_DIGITS = 15;
+
+    private PaymentRequestParser() {
+    }
+
+    public static PaymentQueueItens read(byte[] body, ObjectMapper objectMapper) {
+        PaymentQueueItens payment = parse(body);
+        if (payment != null) {
+            return payment;
+        }
+
+        try {
+            PaymentRequestDTO request = objectMapper.readValue(body, PaymentRequestDTO.class);
+            if (request == null || request.correlationId() == null || request.amount() == null) {
+                return null;
+            }
+            return new PaymentQueueItens(UUID.fromString(request.correlationId()), AmountUtils.toCentsExact(request.amount()));
+        } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    public static PaymentQueueItens parse(byte[] body) {
+        Cursor cursor = new Cursor(body);
+        if (!cursor.expect('{')) return null;
+
+        UUID correlationId = null;
+        long cents = 0;
+        boolean hasAmount = false;
+
+        while (true) {
+            if (!cursor.expect('"')) return null;
+            int keyStart = cursor.pos;
+            int keyEnd = cursor.skipString();
+            if (keyEnd < 0 || !cursor.expect(':')) return null;
+
+            if (matches(body, keyStart, keyEnd, CORRELATION_ID) && correlationId == null) {
+                correlationId = cursor.readUuid();
+                if (correlationId == null) return null;
+            } else if (matches(body, keyStart, keyEnd, AMOUNT) && !hasAmount) {
+                if (!cursor.readCents()) return null;
+                cents = cursor.cents;
+                hasAmount = true;
+            } else {
+                return null;
+            }
+
+            if (cursor.expect(',')) continue;
+            if (cursor.expect('}')) break;
+            return null;
+        }
+
+        if (!cursor.atEnd() || correlationId == null || !hasAmount) {
+            return null;
+        }
+
+        return new PaymentQueueItens(correlationId, cents);
+    }
+
+    private static boolean matches(byte[] body, int start, int end, byte[] key) {
+        if (end - start != key.length) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (body[start + i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    private static int hex(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        return -1;
+    }
+
+    private static final class Cursor {
+
+        private final byte[] body;
+        private int pos;
+        private long cents;
+
+        private Cursor(byte[] body) {
+            this.body = body;
+        }
+
+        private void skipWhitespace() {
+            while (pos < body.length) {
+                byte b = body[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') return;
+                pos++;
+            }
+        }
+
+        private boolean expect(char c) {
+            skipWhitespace();
+            if (pos < body.length && body[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean atEnd() {
+            skipWhitespace();
+            return pos == body.length;
+        }
+
+        private int skipString() {
+            while (pos < body.length) {
+                byte b = body[pos];
+                if (b == '"') return pos++;
+                if (b == '\\' || b < 0x20) return -1;
+                pos++;
+            }
+            return -1;
+        }
+
+        private UUID readUuid() {
+            if (!expect('"') || pos + UUID_LENGTH >= body.length || body[pos + UUID_LENGTH] != '"') {
+                return null;
+            }
+
+            long msb = 0;
+            long lsb = 0;
+            int digits = 0;
+            for (int i = 0; i < UUID_LENGTH; i++) {
+                byte b = body[pos + i];
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (b != '-') return null;
+                    continue;
+                }
+
+                int value = hex(b);
+                if (value < 0) return null;
+                if (digits++ < 16) {
+                    msb = (msb << 4) | value;
+                } else {
+                    lsb = (lsb << 4) | value;
+                }
+            }
+
+            pos += UUID_LENGTH + 1;
+            return new UUID(msb, lsb);
+        }
+
+        private boolean readCents() {
+            skipWhitespace();
+            boolean negative = pos < body.length && body[pos] == '-';
+            if (negative) pos++;
+
+            int start = pos;
+            long integer = 0;
+            while (pos < body.length && body[pos] >= '0' && body[pos] <= '9') {
+                integer = integer * 10 + (body[pos++] - '0');
+            }
+
+            int integerDigits = pos - start;
+            if (integerDigits == 0 || integerDigits > MAX_INTEGER_DIGITS || (integerDigits > 1 && body[start] == '0')) {
+                return false;
+            }
+
+            long fraction = 0;
+            if (pos < body.length && body[pos] == '.') {
+                pos++;
+                int fractionStart = pos;
+                while (pos < body.length && body[pos] >= '0' && body[pos] <= '9') {
+                    fraction = fraction * 10 + (body[pos++] - '0');
+                }
+
+                int fractionDigits = pos - fractionStart;
+                if (fractionDigits == 0 || fractionDigits > 2) return false;
+                if (fractionDigits == 1) fraction *= 10;
+            }
+
+            if (pos < body.length && (body[pos] == 'e' || body[pos] == 'E')) {
+                return false;
+            }
+
+            long value = integer * 100 + fraction;
+            cents = negative ? -value : value;
+            return true;
+        }
+    }
+}
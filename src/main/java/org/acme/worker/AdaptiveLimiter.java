@@ -0,0 +1,81 @@
+package org.acme.worker;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit: grows by one permit per limit's worth of fast successful calls and
+ * shrinks multiplicatively, at most once per target latency window, on errors or slow calls.
+ */
+public class AdaptiveLimiter {
+
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private volatile double limit;
+    private volatile int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyMillis * 1_000_000L;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            if (!success || latencyNanos > targetLatencyNanos) {
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos > targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight * 2 >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+}
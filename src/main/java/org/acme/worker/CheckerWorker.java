@@ -1,49 +1,96 @@
 package org.acme.worker;
 
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
 import io.quarkus.runtime.Startup;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.dto.ProcessorHealthSnapshotDTO;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.redis.RedisRepository;
 import org.acme.service.PaymentsService;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Polls processor health. In coordinated mode only the lease holder probes; its snapshots carry a sequence
+ * from Redis and every node applies only snapshots newer than the last one it applied. A node that has
+ * applied nothing for lease-ms plus two check intervals assumes its subscription was lost with the
+ * connection, subscribes again and starts over from the stored snapshot.
+ */
 @ApplicationScoped
 @Startup
 public class CheckerWorker {
 
+    private static final long CHECK_INTERVAL_MS = 5000;
+
     private ExecutorService executor;
+    private volatile PubSubCommands.RedisSubscriber subscriber;
     private final String serviceType;
+    private final boolean coordinated;
+    private final long leaseMs;
+    private final long staleAfterNanos;
+    private final String nodeId = UUID.randomUUID().toString();
     private final PaymentsService paymentsService;
+    private final RedisRepository redisRepository;
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastSequence = new AtomicLong();
+    private volatile long lastAppliedNanos = System.nanoTime();
+    private final LongAdder errors;
+    private final LongAdder resubscribes;
 
     public CheckerWorker(
             final PaymentsService paymentsService,
-            @ConfigProperty(name = "service.type") final String serviceType
+            final RedisRepository redisRepository,
+            final MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "service.type") final String serviceType,
+            @ConfigProperty(name = "health-check.coordinated") final boolean coordinated,
+            @ConfigProperty(name = "health-check.lease-ms") final long leaseMs
     ) {
         this.serviceType = serviceType;
+        this.coordinated = coordinated && !"embedded".equals(serviceType);
+        this.leaseMs = leaseMs;
+        this.staleAfterNanos = (leaseMs + 2 * CHECK_INTERVAL_MS) * 1_000_000;
         this.paymentsService = paymentsService;
+        this.redisRepository = redisRepository;
+        this.errors = metricsRegistry.counter("health-check.errors");
+        this.resubscribes = metricsRegistry.counter("health-check.resubscribes");
     }
 
 
     @PostConstruct
     public void initChecker() {
-        if(!"worker".equals(serviceType)) {
+        if(!"worker".equals(serviceType) && !"embedded".equals(serviceType)) {
             return;
         }
 
         executor = Executors.newVirtualThreadPerTaskExecutor();
         running.set(true);
 
+        if (coordinated) {
+            try {
+                subscribe();
+            } catch (Exception e) {
+                // the health loop subscribes again once nothing has been applied for a while
+                errors.increment();
+            }
+        }
+
         executor.submit(this::healthCheckLoop);
     }
 
     @PreDestroy
     public void shutdownChecker() {
         running.set(false);
+        if (subscriber != null) {
+            subscriber.unsubscribe();
+        }
         if (executor != null) {
             executor.shutdown();
         }
@@ -52,14 +99,25 @@ public class CheckerWorker {
     private void healthCheckLoop() {
         while (running.get()) {
             try {
-                paymentsService.checkProcessorsHealth();
-                Thread.sleep(5000);
+                if (!coordinated) {
+                    paymentsService.checkProcessorsHealth();
+                } else {
+                    if (redisRepository.tryAcquireHealthLease(nodeId, leaseMs)) {
+                        publishSnapshot();
+                    }
+                    if (System.nanoTime() - lastAppliedNanos > staleAfterNanos) {
+                        resubscribes.increment();
+                        subscribe();
+                    }
+                }
+                Thread.sleep(CHECK_INTERVAL_MS);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
             } catch (Exception e) {
+                errors.increment();
                 try {
-                    Thread.sleep(5000);
+                    Thread.sleep(CHECK_INTERVAL_MS);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     break;
@@ -67,4 +125,48 @@ public class CheckerWorker {
             }
         }
     }
+
+    private void publishSnapshot() {
+        ProcessorHealthSnapshotDTO snapshot = paymentsService.probeProcessorsHealth();
+        long sequence = redisRepository.nextHealthSequence(nodeId);
+        if (sequence == 0) {
+            // the lease ran out while probing
+            return;
+        }
+
+        snapshot = snapshot.withSequence(sequence);
+        applySnapshot(snapshot);
+        redisRepository.publishHealth(snapshot);
+    }
+
+    /**
+     * Sequences restart from zero when Redis loses its data, which also drops the connection, so a new
+     * subscription forgets the last applied sequence along with the old subscriber.
+     */
+    private void subscribe() {
+        PubSubCommands.RedisSubscriber previous = subscriber;
+        if (previous != null) {
+            try {
+                previous.unsubscribe();
+            } catch (Exception ignored) {
+                // the connection it was bound to is usually gone already
+            }
+        }
+
+        lastSequence.set(0);
+        lastAppliedNanos = System.nanoTime();
+        subscriber = redisRepository.subscribeHealth(this::applySnapshot);
+        ProcessorHealthSnapshotDTO current = redisRepository.getHealth();
+        if (current != null) applySnapshot(current);
+    }
+
+    private void applySnapshot(ProcessorHealthSnapshotDTO snapshot) {
+        long previous = lastSequence.get();
+        if (snapshot.sequence() <= previous || !lastSequence.compareAndSet(previous, snapshot.sequence())) {
+            return;
+        }
+
+        lastAppliedNanos = System.nanoTime();
+        paymentsService.applyProcessorsHealth(snapshot);
+    }
 }
@@ -0,0 +1,120 @@
+package org.acme.worker;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.redis.RedisRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps payment_by_date bounded: settled payments older than payment-compaction.horizon-ms are folded into
+ * rollup-ms rollups and removed in batches, and aggregate buckets behind the horizon are dropped. Summaries
+ * read rollups alongside the raw set, so whole-range totals do not change, but a rollup is counted by its
+ * interval start: a range edge behind the horizon is exact only to rollup-ms.
+ * <p>
+ * Setting coarsen-after-ms above zero also merges rollups older than that into coarse-ms intervals, so what
+ * is left grows by a few hash fields per coarse-ms instead of per rollup-ms. Edges in that older part are then
+ * exact only to coarse-ms, which is why coarsening is off unless configured.
+ */
+@ApplicationScoped
+@Startup
+public class CompactionWorker {
+
+    private ExecutorService executor;
+    private final String serviceType;
+    private final boolean enabled;
+    private final long horizonMs;
+    private final long rollupMs;
+    private final long intervalMs;
+    private final int batch;
+    private final long coarsenAfterMs;
+    private final long coarseMs;
+    private final RedisRepository redisRepository;
+    private final LongAdder compacted;
+    private final LongAdder trimmed;
+    private final LongAdder coarsened;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public CompactionWorker(
+            final RedisRepository redisRepository,
+            final MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "service.type") final String serviceType,
+            @ConfigProperty(name = "payment-compaction.enabled") final boolean enabled,
+            @ConfigProperty(name = "payment-compaction.horizon-ms") final long horizonMs,
+            @ConfigProperty(name = "payment-compaction.rollup-ms") final long rollupMs,
+            @ConfigProperty(name = "payment-compaction.interval-ms") final long intervalMs,
+            @ConfigProperty(name = "payment-compaction.batch") final int batch,
+            @ConfigProperty(name = "payment-compaction.coarsen-after-ms") final long coarsenAfterMs,
+            @ConfigProperty(name = "payment-compaction.coarse-ms") final long coarseMs
+    ) {
+        this.redisRepository = redisRepository;
+        this.serviceType = serviceType;
+        this.enabled = enabled;
+        this.horizonMs = horizonMs;
+        this.rollupMs = rollupMs;
+        this.intervalMs = intervalMs;
+        this.batch = batch;
+        this.coarsenAfterMs = coarsenAfterMs;
+        this.coarseMs = coarseMs;
+        this.compacted = metricsRegistry.counter("payment-compaction.compacted");
+        this.trimmed = metricsRegistry.counter("payment-compaction.trimmed-buckets");
+        this.coarsened = metricsRegistry.counter("payment-compaction.coarsened-rollups");
+    }
+
+    @PostConstruct
+    public void initCompactor() {
+        if (!enabled || !"worker".equals(serviceType)) {
+            return;
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        running.set(true);
+
+        executor.submit(this::compactLoop);
+    }
+
+    @PreDestroy
+    public void shutdownCompactor() {
+        running.set(false);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void compactLoop() {
+        while (running.get()) {
+            try {
+                long now = System.currentTimeMillis();
+                long before = Math.floorDiv(now - horizonMs, rollupMs) * rollupMs;
+                int moved = redisRepository.compactLedger(before, batch);
+                int dropped = redisRepository.trimBuckets(before, batch);
+                int merged = coarsenAfterMs > 0
+                        ? redisRepository.coarsenRollups(Math.floorDiv(now - coarsenAfterMs, coarseMs) * coarseMs, coarseMs, batch)
+                        : 0;
+                compacted.add(moved);
+                trimmed.add(dropped);
+                coarsened.add(merged);
+                if (moved < batch && dropped < batch && merged < batch) {
+                    Thread.sleep(intervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
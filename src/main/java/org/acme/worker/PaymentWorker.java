@@ -1,56 +1,104 @@
 package org.acme.worker;
 
 import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.Uni;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.acme.entity.Payment;
 import org.acme.entity.PaymentQueueItens;
-import org.acme.repository.redis.RedisRepository;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
 import org.acme.service.PaymentsService;
 import org.acme.utils.DateUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.time.Instant;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 @Startup
 @ApplicationScoped
 public class PaymentWorker {
 
+    private static final Duration WRITE_RETRY_MIN = Duration.ofMillis(50);
+    private static final Duration WRITE_RETRY_MAX = Duration.ofSeconds(1);
+
     private ExecutorService executor;
     private volatile boolean running = true;
 
-    private final RedisRepository redisRepo;
+    private final PaymentRepository paymentRepository;
     private final PaymentsService paymentsService;
     private final String serviceType;
     private final int qttWorkers;
+    private final int batchSize;
+    private final boolean adaptive;
+    private final boolean reactive;
+    private final int maxWorkers;
+    private final AdaptiveLimiter limiter;
+    private final LongAdder errors;
+    private final LongAdder writeRetries;
 
     public PaymentWorker(
-            final RedisRepository redisRepo,
+            final PaymentRepository paymentRepository,
             final PaymentsService paymentsService,
+            final MetricsRegistry metricsRegistry,
             @ConfigProperty(name = "service.type") final String serviceType,
-            @ConfigProperty(name = "payment-workers.qtt") int qttWorkers
+            @ConfigProperty(name = "payment-workers.qtt") int qttWorkers,
+            @ConfigProperty(name = "payment-workers.batch-size") int batchSize,
+            @ConfigProperty(name = "payment-workers.adaptive") boolean adaptive,
+            @ConfigProperty(name = "payment-workers.min") int minWorkers,
+            @ConfigProperty(name = "payment-workers.max") int maxWorkers,
+            @ConfigProperty(name = "payment-workers.target-latency-ms") long targetLatencyMs,
+            @ConfigProperty(name = "payment-workers.mode") String mode,
+            @ConfigProperty(name = "payment-workers.max-in-flight") int maxInFlight
             ) {
-        this.redisRepo = redisRepo;
+        this.paymentRepository = paymentRepository;
         this.paymentsService = paymentsService;
         this.serviceType = serviceType;
         this.qttWorkers = qttWorkers;
+        this.batchSize = batchSize;
+        this.adaptive = adaptive;
+        this.reactive = "reactive".equals(mode);
+        this.maxWorkers = maxWorkers;
+
+        int initialLimit = reactive ? maxInFlight : qttWorkers;
+        int maxLimit = reactive ? maxInFlight : maxWorkers;
+        this.limiter = new AdaptiveLimiter(initialLimit, adaptive ? minWorkers : initialLimit, adaptive ? maxLimit : initialLimit, targetLatencyMs);
+
+        this.errors = metricsRegistry.counter("payment-workers.errors");
+        this.writeRetries = metricsRegistry.counter("payment-workers.write-retries");
+
+        metricsRegistry.gauge("payment-workers.limit", limiter::getLimit);
+        metricsRegistry.gauge("payment-workers.in-flight", limiter::getInFlight);
     }
 
     @PostConstruct
     void initWorkers() {
-        if (!"worker".equals(serviceType)) {
+        if (!"worker".equals(serviceType) && !"embedded".equals(serviceType)) {
             return;
         }
 
         executor = Executors.newVirtualThreadPerTaskExecutor();
 
-        for (int i = 0; i < qttWorkers; i++) {
+        int loops = adaptive && !reactive && batchSize <= 1 ? maxWorkers : qttWorkers;
+        for (int i = 0; i < loops; i++) {
             final String workerId = UUID.randomUUID().toString();
-            executor.submit(() -> poolLoop(workerId));
+            if (reactive) {
+                executor.submit(() -> reactiveLoop(workerId));
+            } else if (batchSize > 1) {
+                executor.submit(() -> batchLoop(workerId));
+            } else {
+                executor.submit(() -> poolLoop(workerId));
+            }
         }
     }
 
@@ -58,39 +106,211 @@ public class PaymentWorker {
     void shutdownWorkers () {
         running = false;
         if (executor != null) executor.shutdown();
-        redisRepo.closeClient();
+        paymentRepository.closeClient();
     }
 
     private void poolLoop(String workerId) {
         while (running) {
             try {
-                if (!redisRepo.isConnected()) {
-                    Thread.sleep(500);
-                    continue;
-                }
-
-               PaymentQueueItens response = paymentsService.dequeuePayment();
+               limiter.acquire();
+               PaymentQueueItens response = pollPayment();
 
                if (response == null) {
                    Thread.sleep(50);
                    continue;
                }
 
-               Payment payment = new Payment(
-                       response.correlationId().toString(),
-                       response.amount(),
-                       DateUtils.FORMATTER.format(Instant.now())
-               );
+               Payment payment = toPayment(response);
+               String processor;
+               try {
+                   processor = dispatch(payment);
+               } catch (RuntimeException e) {
+                   retryUntilStored(() -> paymentsService.requeuePayment(payment));
+                   throw e;
+               }
+               if (processor != null) {
+                   retryUntilStored(() -> paymentsService.savePayments(Map.of(processor, List.of(payment))));
+               }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                errors.increment();
+                if (!awaitReconnect()) break;
+            }
+        }
+    }
 
-               paymentsService.processPayment(payment);
+    private PaymentQueueItens pollPayment() {
+        PaymentQueueItens item = null;
+        try {
+            item = paymentsService.dequeuePayment();
+            return item;
+        } finally {
+            if (item == null) limiter.release();
+        }
+    }
+
+    private void batchLoop(String workerId) {
+        while (running) {
+            try {
+                List<PaymentQueueItens> items = paymentsService.dequeuePayments(batchSize);
+
+                if (items.isEmpty()) {
+                    continue;
+                }
+
+                List<Payment> payments = new ArrayList<>(items.size());
+                List<Future<String>> results = new ArrayList<>(items.size());
+                for (PaymentQueueItens item : items) {
+                    Payment payment = toPayment(item);
+                    payments.add(payment);
+                    results.add(executor.submit(() -> {
+                        limiter.acquire();
+                        return dispatch(payment);
+                    }));
+                }
+
+                Map<String, List<Payment>> settled = new HashMap<>();
+                List<Payment> failed = new ArrayList<>();
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        String processor = results.get(i).get();
+                        if (processor != null) {
+                            settled.computeIfAbsent(processor, k -> new ArrayList<>()).add(payments.get(i));
+                        }
+                    } catch (ExecutionException e) {
+                        failed.add(payments.get(i));
+                    }
+                }
+
+                retryUntilStored(() -> paymentsService.savePayments(settled));
+                for (Payment payment : failed) {
+                    retryUntilStored(() -> paymentsService.requeuePayment(payment));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception e) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
+                errors.increment();
+                if (!awaitReconnect()) break;
+            }
+        }
+    }
+
+    /**
+     * A payment the processor already took must be settled, and a failed one must go back on the queue;
+     * dropping either write on a Redis error loses the payment for good. The write is repeated after every
+     * reconnect, before anything new is dequeued. Settles are written before requeues so a requeue error
+     * cannot hold back accepted payments; both writes are idempotent per payment.
+     */
+    private void retryUntilStored(Runnable write) throws InterruptedException {
+        while (true) {
+            try {
+                write.run();
+                return;
+            } catch (RuntimeException e) {
+                errors.increment();
+                if (!running || !awaitReconnect()) throw new InterruptedException();
+            }
+        }
+    }
+
+    private void reactiveLoop(String workerId) {
+        while (running) {
+            try {
+                List<PaymentQueueItens> items = paymentsService.dequeuePayments(batchSize);
+
+                for (PaymentQueueItens item : items) {
+                    if (paymentsService.resolveDuplicate(item.correlationId().toString(), item.amount())) {
+                        continue;
+                    }
+
+                    limiter.acquire();
+                    dispatchAsync(toPayment(item));
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                errors.increment();
+                if (!awaitReconnect()) break;
             }
         }
     }
+
+    private void dispatchAsync(Payment payment) {
+        long start = System.nanoTime();
+        paymentsService.dispatchPaymentAsync(payment)
+                .subscribe().with(
+                        processor -> {
+                            release(start, processor, false);
+                            if (processor != null) {
+                                writeUntilStored(paymentsService.savePaymentsAsync(Map.of(processor, List.of(payment))));
+                            }
+                        },
+                        failure -> {
+                            release(start, null, true);
+                            writeUntilStored(paymentsService.requeuePaymentAsync(payment));
+                        }
+                );
+    }
+
+    /**
+     * Settling an accepted payment or putting a failed one back must not be lost to a Redis error, so the
+     * write is resubscribed with backoff until it goes through. Both writes are safe to repeat.
+     */
+    private void writeUntilStored(Uni<Void> write) {
+        write.onFailure().invoke(e -> writeRetries.increment())
+                .onFailure().retry().withBackOff(WRITE_RETRY_MIN, WRITE_RETRY_MAX).indefinitely()
+                .subscribe().with(ignored -> { }, e -> errors.increment());
+    }
+
+    private String dispatch(Payment payment) {
+        long start = System.nanoTime();
+        String processor = null;
+        boolean failed = true;
+        try {
+            processor = paymentsService.dispatchPayment(payment);
+            failed = false;
+            return processor;
+        } finally {
+            release(start, processor, failed);
+        }
+    }
+
+    /**
+     * A null processor means no successful call to learn from: nothing was routable, the payment was already
+     * settled, or the processor answered with something that sent it back to the queue. None of that says the
+     * limit is too high, so the permit goes back without moving it; only a thrown call counts against it.
+     */
+    private void release(long start, String processor, boolean failed) {
+        if (failed) {
+            limiter.release(System.nanoTime() - start, false);
+        } else if (processor == null) {
+            limiter.release();
+        } else {
+            limiter.release(System.nanoTime() - start, true);
+        }
+    }
+
+    private Payment toPayment(PaymentQueueItens item) {
+        return new Payment(
+                item.correlationId().toString(),
+                item.amount(),
+                DateUtils.formatEpochMilli(System.currentTimeMillis())
+        );
+    }
+
+    private boolean awaitReconnect() {
+        try {
+            do {
+                Thread.sleep(1000);
+            } while (running && !paymentRepository.isConnected());
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 }
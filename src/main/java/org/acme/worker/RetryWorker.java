@@ -0,0 +1,86 @@
+package org.acme.worker;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.service.PaymentsService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+@ApplicationScoped
+@Startup
+public class RetryWorker {
+
+    private ExecutorService executor;
+    private final String serviceType;
+    private final boolean enabled;
+    private final long promoteIntervalMs;
+    private final int promoteBatch;
+    private final PaymentsService paymentsService;
+    private final LongAdder promoted;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RetryWorker(
+            final PaymentsService paymentsService,
+            final MetricsRegistry metricsRegistry,
+            @ConfigProperty(name = "service.type") final String serviceType,
+            @ConfigProperty(name = "payment-retry.enabled") final boolean enabled,
+            @ConfigProperty(name = "payment-retry.promote-interval-ms") final long promoteIntervalMs,
+            @ConfigProperty(name = "payment-retry.promote-batch") final int promoteBatch
+    ) {
+        this.paymentsService = paymentsService;
+        this.serviceType = serviceType;
+        this.enabled = enabled;
+        this.promoteIntervalMs = promoteIntervalMs;
+        this.promoteBatch = promoteBatch;
+        this.promoted = metricsRegistry.counter("payment-retry.promoted");
+    }
+
+    @PostConstruct
+    public void initPromoter() {
+        if (!enabled || (!"worker".equals(serviceType) && !"embedded".equals(serviceType))) {
+            return;
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        running.set(true);
+
+        executor.submit(this::promoteLoop);
+    }
+
+    @PreDestroy
+    public void shutdownPromoter() {
+        running.set(false);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void promoteLoop() {
+        while (running.get()) {
+            try {
+                int moved = paymentsService.promoteDueRetries(promoteBatch);
+                promoted.add(moved);
+                if (moved < promoteBatch) {
+                    Thread.sleep(promoteIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
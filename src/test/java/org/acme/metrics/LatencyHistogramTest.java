@@ -0,0 +1,79 @@
+package org.acme.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValue() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBound(index), "value " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.upperBound(index - 1), "value " + value);
+        }
+        assertTrue(Long.MAX_VALUE <= LatencyHistogram.upperBound(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void bucketsStayWithinTheRelativeError() {
+        for (long value = 16; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 7) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.indexOf(value));
+            assertTrue((double) (upper - value) / value <= 1.0 / 16, "value " + value);
+        }
+    }
+
+    @Test
+    void reportsPercentilesOfAUniformSpread() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(1000L, snapshot.get("count"));
+        assertEquals(1000L, snapshot.get("max-us"));
+        assertWithin(500, (Long) snapshot.get("mean-us"));
+        assertWithin(500, (Long) snapshot.get("p50-us"));
+        assertWithin(900, (Long) snapshot.get("p90-us"));
+        assertWithin(990, (Long) snapshot.get("p99-us"));
+        assertWithin(999, (Long) snapshot.get("p999-us"));
+    }
+
+    @Test
+    void capsPercentilesAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(1000L, snapshot.get("p50-us"));
+        assertEquals(1000L, snapshot.get("p999-us"));
+    }
+
+    @Test
+    void reportsZerosWhenEmpty() {
+        Map<String, Object> snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0L, snapshot.get("count"));
+        assertEquals(0L, snapshot.get("p99-us"));
+        assertEquals(0L, snapshot.get("max-us"));
+    }
+
+    @Test
+    void clampsNegativeDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(1L, snapshot.get("count"));
+        assertEquals(0L, snapshot.get("max-us"));
+    }
+
+    private static void assertWithin(long expectedMicros, long actualMicros) {
+        assertTrue(Math.abs(actualMicros - expectedMicros) <= expectedMicros / 16 + 1,
+                "expected about " + expectedMicros + " got " + actualMicros);
+    }
+}
@@ -0,0 +1,78 @@
+package org.acme.repository.embedded;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.entity.PaymentsSummaryResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryPaymentLedgerTest {
+
+    private static final long START = 1_750_000_000_000L;
+
+    @Test
+    void sumsRangesLikeAFullScan() {
+        InMemoryPaymentLedger ledger = new InMemoryPaymentLedger();
+        List<Entry> entries = appendJittered(ledger, 100_000, new Random(7));
+
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            long from = START + random.nextInt(110_000) - 5_000;
+            long to = from + random.nextInt(20_000);
+            assertEquals(expected(entries, from, to), sum(ledger, from, to), "range " + from + ".." + to);
+        }
+        assertEquals(expected(entries, Long.MIN_VALUE, Long.MAX_VALUE), sum(ledger, null, null));
+        assertEquals(expected(entries, START + 50_000, Long.MAX_VALUE), sum(ledger, START + 50_000, null));
+        assertEquals(expected(entries, Long.MIN_VALUE, START + 50_000), sum(ledger, null, START + 50_000));
+    }
+
+    @Test
+    void includesBothEdgesOfARange() {
+        InMemoryPaymentLedger ledger = new InMemoryPaymentLedger();
+        ledger.append(START + 2, UUID.randomUUID(), 300, PaymentLedger.DEFAULT_TAG);
+        ledger.append(START, UUID.randomUUID(), 100, PaymentLedger.DEFAULT_TAG);
+        ledger.append(START + 1, UUID.randomUUID(), 200, PaymentLedger.FALLBACK_TAG);
+        ledger.append(START + 3, UUID.randomUUID(), 400, PaymentLedger.DEFAULT_TAG);
+
+        List<Entry> entries = List.of(
+                new Entry(START, null, 100, PaymentLedger.DEFAULT_TAG),
+                new Entry(START + 1, null, 200, PaymentLedger.FALLBACK_TAG),
+                new Entry(START + 2, null, 300, PaymentLedger.DEFAULT_TAG));
+        assertEquals(expected(entries, START, START + 2), sum(ledger, START, START + 2));
+        assertEquals(expected(List.of(), 0, 0), sum(ledger, START + 4, null));
+    }
+
+    private static List<Entry> appendJittered(PaymentLedger ledger, int count, Random random) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Entry entry = new Entry(START + i - random.nextInt(50), UUID.randomUUID(), 1 + random.nextInt(10_000),
+                    random.nextInt(4) == 0 ? PaymentLedger.FALLBACK_TAG : PaymentLedger.DEFAULT_TAG);
+            ledger.append(entry.timestamp(), entry.correlationId(), entry.cents(), entry.processor());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static PaymentsSummaryResponse sum(PaymentLedger ledger, Long from, Long to) {
+        PaymentTotals totals = new PaymentTotals();
+        ledger.sum(from, to, totals);
+        return totals.toResponse();
+    }
+
+    private static PaymentsSummaryResponse expected(List<Entry> entries, long from, long to) {
+        PaymentTotals totals = new PaymentTotals();
+        for (Entry entry : entries) {
+            if (entry.timestamp() >= from && entry.timestamp() <= to) {
+                totals.add(entry.processor() == PaymentLedger.DEFAULT_TAG ? "default" : "fallback", 1, entry.cents());
+            }
+        }
+        return totals.toResponse();
+    }
+
+    private record Entry(long timestamp, UUID correlationId, long cents, byte processor) { }
+}
@@ -0,0 +1,128 @@
+package org.acme.repository.embedded;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.entity.PaymentsSummaryResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedPaymentLedgerTest {
+
+    private static final long SEGMENT_BYTES = 1000L * MappedPaymentLedger.RECORD_SIZE;
+    private static final long START = 1_750_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sumsRangesLikeAFullScan() throws IOException {
+        MappedPaymentLedger ledger = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        List<Entry> entries = appendJittered(ledger, 5_000, new Random(7));
+
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            long from = START + random.nextInt(6_000) - 500;
+            long to = from + random.nextInt(3_000);
+            assertEquals(expected(entries, from, to), sum(ledger, from, to), "range " + from + ".." + to);
+        }
+        assertEquals(expected(entries, Long.MIN_VALUE, Long.MAX_VALUE), sum(ledger, null, null));
+        assertEquals(expected(entries, START + 2_000, Long.MAX_VALUE), sum(ledger, START + 2_000, null));
+        assertEquals(expected(entries, Long.MIN_VALUE, START + 2_000), sum(ledger, null, START + 2_000));
+    }
+
+    @Test
+    void recoversRecordsAcrossSegments() throws IOException {
+        MappedPaymentLedger ledger = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        List<Entry> entries = appendJittered(ledger, 2_500, new Random(3));
+        ledger.close();
+
+        MappedPaymentLedger recovered = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        assertEquals(expected(entries, Long.MIN_VALUE, Long.MAX_VALUE), sum(recovered, null, null));
+        assertEquals(expected(entries, START + 500, START + 1_500), sum(recovered, START + 500, START + 1_500));
+
+        UUID next = UUID.randomUUID();
+        recovered.append(START + 2_500, next, 700, PaymentLedger.FALLBACK_TAG);
+        entries.add(new Entry(START + 2_500, next, 700, PaymentLedger.FALLBACK_TAG));
+        recovered.close();
+
+        MappedPaymentLedger reopened = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        assertEquals(expected(entries, Long.MIN_VALUE, Long.MAX_VALUE), sum(reopened, null, null));
+    }
+
+    @Test
+    void recoversAnExactlyFullSegment() throws IOException {
+        MappedPaymentLedger ledger = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        List<Entry> entries = appendJittered(ledger, 1_000, new Random(5));
+        ledger.close();
+
+        MappedPaymentLedger recovered = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        UUID next = UUID.randomUUID();
+        recovered.append(START + 1_000, next, 1, PaymentLedger.DEFAULT_TAG);
+        entries.add(new Entry(START + 1_000, next, 1, PaymentLedger.DEFAULT_TAG));
+
+        assertEquals(expected(entries, Long.MIN_VALUE, Long.MAX_VALUE), sum(recovered, null, null));
+    }
+
+    @Test
+    void visitsIdsSinceATimestamp() throws IOException {
+        MappedPaymentLedger ledger = new MappedPaymentLedger(directory, SEGMENT_BYTES);
+        List<Entry> entries = appendJittered(ledger, 5_000, new Random(13));
+
+        for (long since : new long[]{START - 1_000, START + 1_234, START + 4_900, START + 10_000}) {
+            Set<UUID> expected = new HashSet<>();
+            for (Entry entry : entries) {
+                if (entry.timestamp() >= since) expected.add(entry.correlationId());
+            }
+
+            Set<UUID> visited = new HashSet<>();
+            ledger.forEachCorrelationId(since, visited::add);
+            assertEquals(expected, visited, "since " + since);
+        }
+    }
+
+    @Test
+    void rejectsSegmentsSmallerThanARecord() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedPaymentLedger(directory, MappedPaymentLedger.RECORD_SIZE - 1));
+    }
+
+    private static List<Entry> appendJittered(MappedPaymentLedger ledger, int count, Random random) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Entry entry = new Entry(START + i - random.nextInt(50), UUID.randomUUID(), 1 + random.nextInt(10_000),
+                    random.nextInt(4) == 0 ? PaymentLedger.FALLBACK_TAG : PaymentLedger.DEFAULT_TAG);
+            ledger.append(entry.timestamp(), entry.correlationId(), entry.cents(), entry.processor());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static PaymentsSummaryResponse sum(PaymentLedger ledger, Long from, Long to) {
+        PaymentTotals totals = new PaymentTotals();
+        ledger.sum(from, to, totals);
+        return totals.toResponse();
+    }
+
+    private static PaymentsSummaryResponse expected(List<Entry> entries, long from, long to) {
+        PaymentTotals totals = new PaymentTotals();
+        for (Entry entry : entries) {
+            if (entry.timestamp() >= from && entry.timestamp() <= to) {
+                totals.add(entry.processor() == PaymentLedger.DEFAULT_TAG ? "default" : "fallback", 1, entry.cents());
+            }
+        }
+        return totals.toResponse();
+    }
+
+    private record Entry(long timestamp, UUID correlationId, long cents, byte processor) { }
+}
@@ -0,0 +1,90 @@
+package org.acme.repository.embedded;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettledIdsTest {
+
+    private static final long TTL_MS = 300;
+
+    @Test
+    void rejectsAnIdAlreadyAdded() {
+        SettledIds ids = new SettledIds(60_000);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(ids.add(id));
+        assertFalse(ids.add(id));
+        assertTrue(ids.contains(id));
+        assertFalse(ids.contains(UUID.randomUUID()));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    void keepsTheNilUuidApartFromFreeSlots() {
+        SettledIds ids = new SettledIds(60_000);
+        UUID nil = new UUID(0, 0);
+
+        assertFalse(ids.contains(nil));
+        assertTrue(ids.add(nil));
+        assertFalse(ids.add(nil));
+        assertTrue(ids.contains(nil));
+        assertEquals(1, ids.size());
+    }
+
+    @Test
+    void growsPastTheInitialTable() {
+        SettledIds ids = new SettledIds(60_000);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            assertTrue(ids.add(id));
+            added.add(id);
+        }
+
+        assertEquals(10_000, ids.size());
+        for (UUID id : added) {
+            assertTrue(ids.contains(id));
+            assertFalse(ids.add(id));
+        }
+    }
+
+    @Test
+    void keepsAnIdForOneMoreGenerationAfterTtl() throws InterruptedException {
+        SettledIds ids = new SettledIds(TTL_MS);
+        UUID first = UUID.randomUUID();
+        ids.add(first);
+
+        Thread.sleep(TTL_MS + 50);
+        assertTrue(ids.contains(first));
+        assertFalse(ids.add(first));
+
+        UUID second = UUID.randomUUID();
+        assertTrue(ids.add(second));
+
+        Thread.sleep(TTL_MS + 50);
+        assertFalse(ids.contains(first));
+        assertTrue(ids.contains(second));
+        assertTrue(ids.add(first));
+    }
+
+    @Test
+    void dropsBothGenerationsAfterTwiceTtl() throws InterruptedException {
+        SettledIds ids = new SettledIds(TTL_MS);
+        UUID id = UUID.randomUUID();
+        UUID nil = new UUID(0, 0);
+        ids.add(id);
+        ids.add(nil);
+
+        Thread.sleep(2 * TTL_MS + 50);
+        assertFalse(ids.contains(id));
+        assertFalse(ids.contains(nil));
+        assertEquals(0, ids.size());
+    }
+}
@@ -0,0 +1,87 @@
+package org.acme.repository.redis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueShardsTest {
+
+    @Test
+    void keepsThePlainKeyForASingleShard() {
+        QueueShards shards = new QueueShards("payments", 1, 0, 3);
+
+        assertArrayEquals(new String[]{"payments"}, shards.keys());
+        assertEquals("payments", shards.keyFor(UUID.randomUUID()));
+        assertArrayEquals(new String[]{"payments"}, shards.pollOrder());
+        assertEquals("payments", shards.promoteTarget());
+        assertTrue(shards.isOwned("payments"));
+    }
+
+    @Test
+    void namesShardsAfterTheBaseKey() {
+        QueueShards shards = new QueueShards("payments", 4, 0, 1);
+        assertArrayEquals(new String[]{"payments", "payments:1", "payments:2", "payments:3"}, shards.keys());
+        assertEquals(4, shards.size());
+    }
+
+    @Test
+    void placesAPaymentOnTheSameShardEveryTime() {
+        QueueShards shards = new QueueShards("payments", 4, 0, 2);
+        QueueShards other = new QueueShards("payments", 4, 1, 2);
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID correlationId = UUID.randomUUID();
+            String key = shards.keyFor(correlationId);
+            assertEquals(key, shards.keyFor(correlationId));
+            assertEquals(key, other.keyFor(correlationId));
+            used.add(key);
+        }
+        assertEquals(Set.of(shards.keys()), used);
+    }
+
+    @Test
+    void pollsOwnShardsBeforeStealingAndRotatesTheStart() {
+        QueueShards shards = new QueueShards("q", 4, 1, 2);
+
+        assertTrue(shards.isOwned("q:1"));
+        assertTrue(shards.isOwned("q:3"));
+        assertFalse(shards.isOwned("q"));
+        assertFalse(shards.isOwned("q:2"));
+
+        Set<String> firsts = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            String[] order = shards.pollOrder();
+            assertEquals(Set.of("q:1", "q:3"), Set.of(order[0], order[1]));
+            assertEquals(Set.of("q", "q:2"), Set.of(order[2], order[3]));
+            firsts.add(order[0]);
+        }
+        assertEquals(Set.of("q:1", "q:3"), firsts);
+    }
+
+    @Test
+    void promotesRetriesOnlyToOwnShards() {
+        QueueShards shards = new QueueShards("q", 4, 0, 2);
+        Set<String> targets = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            targets.add(shards.promoteTarget());
+        }
+        assertEquals(Set.of("q", "q:2"), targets);
+    }
+
+    @Test
+    void ownsEveryShardWhenThereAreMoreNodesThanShards() {
+        QueueShards shards = new QueueShards("q", 2, 3, 4);
+        for (String key : List.of("q", "q:1")) {
+            assertTrue(shards.isOwned(key));
+        }
+        assertEquals(Set.of("q", "q:1"), Set.of(shards.pollOrder()));
+    }
+}
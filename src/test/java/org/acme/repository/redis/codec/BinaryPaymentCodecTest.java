@@ -0,0 +1,50 @@
+package org.acme.repository.redis.codec;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.entity.PaymentsSummaryResponse;
+import org.acme.repository.redis.dbo.PaymentDBO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryPaymentCodecTest {
+
+    private final BinaryPaymentCodec codec = new BinaryPaymentCodec();
+
+    @Test
+    void roundTripsAMember() {
+        UUID correlationId = UUID.randomUUID();
+        byte[] member = codec.encode(new PaymentDBO(correlationId, new BigDecimal("19.90"), "fallback"));
+
+        assertTrue(BinaryPaymentCodec.isBinary(member));
+        PaymentDBO decoded = codec.decode(member);
+        assertEquals(correlationId, decoded.getCorrelationId());
+        assertEquals(new BigDecimal("19.90"), decoded.getAmount());
+        assertEquals("fallback", decoded.getProcessor());
+    }
+
+    @Test
+    void accumulatesWithoutDecoding() {
+        PaymentTotals totals = new PaymentTotals();
+        codec.accumulate(codec.encode(new PaymentDBO(UUID.randomUUID(), new BigDecimal("10.5"), "default")), totals);
+        codec.accumulate(codec.encode(new PaymentDBO(UUID.randomUUID(), new BigDecimal("0.01"), "default")), totals);
+        codec.accumulate(codec.encode(new PaymentDBO(UUID.randomUUID(), new BigDecimal("3"), "fallback")), totals);
+
+        PaymentsSummaryResponse response = totals.toResponse();
+        assertEquals(2, response.defaultP().totalRequests());
+        assertEquals(new BigDecimal("10.51"), response.defaultP().totalAmount());
+        assertEquals(1, response.fallback().totalRequests());
+        assertEquals(new BigDecimal("3.00"), response.fallback().totalAmount());
+    }
+
+    @Test
+    void rejectsUnknownProcessors() {
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.encode(new PaymentDBO(UUID.randomUUID(), BigDecimal.ONE, "other")));
+    }
+}
@@ -0,0 +1,43 @@
+package org.acme.repository.redis.codec;
+
+import org.acme.entity.PaymentQueueItens;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueueRecordCodecTest {
+
+    @Test
+    void roundTripsTheBinaryLayout() {
+        PaymentQueueItens item = new PaymentQueueItens(UUID.randomUUID(), 1990);
+        byte[] record = QueueRecordCodec.encode(item);
+
+        assertEquals(QueueRecordCodec.RECORD_SIZE, record.length);
+        assertEquals(item, QueueRecordCodec.decode(record));
+    }
+
+    @Test
+    void roundTripsTheTextLayout() {
+        PaymentQueueItens item = new PaymentQueueItens(UUID.randomUUID(), 5);
+        assertEquals(item, QueueRecordCodec.decode(QueueRecordCodec.encodeText(item)));
+    }
+
+    @Test
+    void decodesEntriesWrittenBeforeTheBinaryLayout() {
+        UUID correlationId = UUID.fromString("4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3");
+        byte[] legacy = (correlationId + ":19.9").getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(new PaymentQueueItens(correlationId, 1990), QueueRecordCodec.decode(legacy));
+    }
+
+    @Test
+    void readsTheCorrelationIdFromEitherLayout() {
+        PaymentQueueItens item = new PaymentQueueItens(UUID.randomUUID(), 1990);
+
+        assertEquals(item.correlationId(), QueueRecordCodec.correlationId(QueueRecordCodec.encode(item)));
+        assertEquals(item.correlationId(), QueueRecordCodec.correlationId(QueueRecordCodec.encodeText(item)));
+    }
+}
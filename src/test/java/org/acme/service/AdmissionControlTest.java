@@ -0,0 +1,138 @@
+package org.acme.service;
+
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    private static final long SAMPLE_MS = 20;
+    private static final long THROTTLE_DEPTH = 100;
+    private static final long SHED_DEPTH = 200;
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @Test
+    void admitsEverythingBelowTheThrottleDepth() throws InterruptedException {
+        AdmissionControl admission = started("api", true, () -> THROTTLE_DEPTH - 1);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                assertTrue(admission.tryAdmit());
+            }
+            assertEquals(0, metricsRegistry.counter("admission.throttled").sum());
+            assertEquals(0, metricsRegistry.counter("admission.shed").sum());
+        } finally {
+            admission.shutdownSampler();
+        }
+    }
+
+    @Test
+    void shedsEverythingAtTheShedDepth() throws InterruptedException {
+        AdmissionControl admission = started("api", true, () -> SHED_DEPTH);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                assertFalse(admission.tryAdmit());
+            }
+            assertEquals(1_000, metricsRegistry.counter("admission.shed").sum());
+            assertEquals(0, metricsRegistry.counter("admission.throttled").sum());
+        } finally {
+            admission.shutdownSampler();
+        }
+    }
+
+    @Test
+    void admitsALinearShareBetweenTheThresholds() throws InterruptedException {
+        AdmissionControl admission = started("api", true, () -> (THROTTLE_DEPTH + SHED_DEPTH) / 2);
+        try {
+            int admitted = 0;
+            for (int i = 0; i < 10_000; i++) {
+                if (admission.tryAdmit()) admitted++;
+            }
+            assertTrue(admitted > 4_000 && admitted < 6_000, "admitted " + admitted);
+            assertEquals(10_000 - admitted, metricsRegistry.counter("admission.throttled").sum());
+        } finally {
+            admission.shutdownSampler();
+        }
+    }
+
+    @Test
+    void shedsWhileTheQueueCannotBeSampled() throws InterruptedException {
+        AdmissionControl admission = started("api", true, () -> {
+            throw new IllegalStateException("connection refused");
+        });
+        try {
+            assertFalse(admission.tryAdmit());
+            assertEquals(1, metricsRegistry.counter("admission.shed").sum());
+        } finally {
+            admission.shutdownSampler();
+        }
+    }
+
+    @Test
+    void letsOneProbeThroughPerSampleAfterRepeatedEnqueueFailures() throws InterruptedException {
+        AdmissionControl admission = started("api", true, () -> 0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(admission.tryAdmit());
+                admission.recordEnqueueFailure();
+            }
+            assertEquals(3, metricsRegistry.counter("admission.enqueue-failures").sum());
+
+            assertTrue(admission.tryAdmit());
+            assertFalse(admission.tryAdmit());
+            assertFalse(admission.tryAdmit());
+
+            Thread.sleep(SAMPLE_MS * 2);
+            assertTrue(admission.tryAdmit());
+            assertFalse(admission.tryAdmit());
+
+            admission.recordEnqueueSuccess();
+            assertTrue(admission.tryAdmit());
+            assertTrue(admission.tryAdmit());
+        } finally {
+            admission.shutdownSampler();
+        }
+    }
+
+    @Test
+    void admitsEverythingWhenDisabledOrOnAWorker() throws InterruptedException {
+        AdmissionControl disabled = started("api", false, () -> SHED_DEPTH);
+        AdmissionControl worker = started("worker", true, () -> SHED_DEPTH);
+        assertTrue(disabled.tryAdmit());
+        assertTrue(worker.tryAdmit());
+        assertEquals(0, metricsRegistry.counter("admission.shed").sum());
+    }
+
+    private AdmissionControl started(String serviceType, boolean enabled, LongSupplier queueDepth)
+            throws InterruptedException {
+        CountDownLatch sampled = new CountDownLatch(2);
+        PaymentRepository repository = (PaymentRepository) Proxy.newProxyInstance(
+                PaymentRepository.class.getClassLoader(),
+                new Class<?>[]{PaymentRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("queueDepth")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    sampled.countDown();
+                    return queueDepth.getAsLong();
+                });
+
+        AdmissionControl admission = new AdmissionControl(repository, metricsRegistry, serviceType, enabled,
+                SAMPLE_MS, THROTTLE_DEPTH, SHED_DEPTH, 3, 1);
+        admission.initSampler();
+        if (enabled && !"worker".equals(serviceType)) {
+            // the second call starts only after the first sample has been stored
+            assertTrue(sampled.await(5, TimeUnit.SECONDS));
+        }
+        return admission;
+    }
+}
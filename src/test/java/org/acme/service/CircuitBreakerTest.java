@@ -0,0 +1,133 @@
+package org.acme.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = 1_000_000;
+    private static final long SLOW = 2_000_000_000;
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = breaker(3, 60_000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordResponse(200, FAST);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.CLOSED, breaker.state());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+        assertEquals(1, breaker.trips());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void countsErrorsThrottlingAndSlowCallsAsBad() {
+        CircuitBreaker breaker = breaker(3, 60_000);
+        breaker.recordResponse(500, FAST);
+        breaker.recordResponse(429, FAST);
+        breaker.recordResponse(200, SLOW);
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+    }
+
+    @Test
+    void opensOnTheFailureRateOnceMinCallsAreIn() {
+        CircuitBreaker breaker = new CircuitBreaker(true, 10, 10, 0.5, 100, 1_000, 60_000, 2);
+        for (int i = 0; i < 9; i++) {
+            if (i % 2 == 0) breaker.recordResponse(200, FAST);
+            else breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.CLOSED, breaker.state());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+    }
+
+    @Test
+    void closesWhenEveryProbeSucceeds() {
+        CircuitBreaker breaker = breaker(1, 0);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+        assertTrue(breaker.awaitsProbe());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.awaitsProbe());
+
+        assertFalse(breaker.recordResponse(200, FAST));
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.state());
+        assertTrue(breaker.recordResponse(200, FAST));
+        assertEquals(CircuitBreaker.CLOSED, breaker.state());
+        assertFalse(breaker.awaitsProbe());
+    }
+
+    @Test
+    void reopensOnABadProbe() {
+        CircuitBreaker breaker = breaker(1, 0);
+        breaker.recordFailure();
+        assertTrue(breaker.tryAcquire());
+
+        assertFalse(breaker.recordResponse(503, FAST));
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+        assertEquals(2, breaker.trips());
+    }
+
+    @Test
+    void healthyPollEndsTheOpenPeriodAndHandsBackLostProbes() {
+        CircuitBreaker breaker = breaker(1, 60_000);
+        breaker.recordFailure();
+        assertFalse(breaker.awaitsProbe());
+
+        breaker.recordHealthy();
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.state());
+        assertTrue(breaker.awaitsProbe());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.awaitsProbe());
+
+        breaker.recordHealthy();
+        assertTrue(breaker.awaitsProbe());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void startsCountingAfreshAfterClosing() {
+        CircuitBreaker breaker = new CircuitBreaker(true, 4, 4, 0.5, 100, 1_000, 0, 1);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordResponse(200, FAST);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.state());
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.recordResponse(200, FAST));
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.CLOSED, breaker.state());
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        CircuitBreaker breaker = new CircuitBreaker(false, 10, 1, 0.1, 1, 1_000, 60_000, 1);
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure();
+        }
+
+        assertEquals(CircuitBreaker.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.awaitsProbe());
+        assertEquals(0, breaker.trips());
+    }
+
+    private static CircuitBreaker breaker(int consecutiveFailures, long openMs) {
+        return new CircuitBreaker(true, 100, 100, 1.0, consecutiveFailures, 1_000, openMs, 2);
+    }
+}
@@ -0,0 +1,133 @@
+package org.acme.service;
+
+import org.acme.entity.PaymentQueueItens;
+import org.acme.metrics.MetricsRegistry;
+import org.acme.repository.PaymentRepository;
+import org.acme.repository.embedded.EmbeddedRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionBufferTest {
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @Test
+    void flushesEveryOfferFromConcurrentProducersInBoundedBatches() throws Exception {
+        EmbeddedRepository repository = repository();
+        IngestionBuffer buffer = buffer(repository, 1024, 64, 200);
+        buffer.initFlusher();
+        try {
+            int producers = 4;
+            int perProducer = 1_000;
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < perProducer; ) {
+                        if (buffer.offer(new PaymentQueueItens(UUID.randomUUID(), 100 + i))) {
+                            i++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                });
+                threads[p].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            int total = producers * perProducer;
+            awaitTrue(() -> repository.queueDepth() == total);
+            assertEquals(total, metricsRegistry.counter("ingestion.flushed-items").sum());
+            assertTrue(metricsRegistry.counter("ingestion.flushes").sum() >= total / 64);
+            assertTrue(((Number) metricsRegistry.snapshot().get("ingestion.last-flush-size")).intValue() <= 64);
+
+            Set<UUID> ids = new HashSet<>();
+            for (PaymentQueueItens item : repository.dequeueBatch(total)) {
+                ids.add(item.correlationId());
+            }
+            assertEquals(total, ids.size());
+        } finally {
+            buffer.shutdownFlusher();
+        }
+    }
+
+    @Test
+    void flushesAPartialBatchOnceTheIntervalPasses() throws Exception {
+        EmbeddedRepository repository = repository();
+        IngestionBuffer buffer = buffer(repository, 1024, 256, 1_000);
+        buffer.initFlusher();
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(new PaymentQueueItens(UUID.randomUUID(), 1990)));
+            }
+
+            awaitTrue(() -> repository.queueDepth() == 3);
+            assertEquals(3, metricsRegistry.counter("ingestion.flushed-items").sum());
+        } finally {
+            buffer.shutdownFlusher();
+        }
+    }
+
+    @Test
+    void refusesOffersWhenStopped() throws Exception {
+        IngestionBuffer buffer = buffer(repository(), 1024, 64, 200);
+        assertFalse(buffer.offer(new PaymentQueueItens(UUID.randomUUID(), 1990)));
+
+        buffer.initFlusher();
+        buffer.shutdownFlusher();
+        assertFalse(buffer.offer(new PaymentQueueItens(UUID.randomUUID(), 1990)));
+    }
+
+    @Test
+    void refusesOffersOnceTheRingFillsBehindAFailingQueue() throws Exception {
+        EmbeddedRepository repository = new EmbeddedRepository(Optional.empty(), 64, 5_000, 600_000) {
+            @Override
+            public void enqueueEncoded(List<byte[]> paymentData) {
+                throw new IllegalStateException("queue unavailable");
+            }
+        };
+        IngestionBuffer buffer = buffer(repository, 4, 2, 100);
+        buffer.initFlusher();
+        try {
+            int accepted = 0;
+            while (buffer.offer(new PaymentQueueItens(UUID.randomUUID(), 1990))) {
+                accepted++;
+                assertTrue(accepted <= 6, "a flush holds at most flush-size entries outside the ring");
+            }
+
+            awaitTrue(() -> metricsRegistry.counter("ingestion.flush-failures").sum() > 0);
+            assertEquals(0, metricsRegistry.counter("ingestion.flushed-items").sum());
+        } finally {
+            buffer.shutdownFlusher();
+        }
+    }
+
+    private IngestionBuffer buffer(PaymentRepository repository, int capacity, int flushSize, long flushIntervalMicros) {
+        AdmissionControl admissionControl = new AdmissionControl(repository, metricsRegistry, "api", false, 100, 10, 20, 3, 1);
+        return new IngestionBuffer(repository, admissionControl, metricsRegistry, true, capacity, flushSize, flushIntervalMicros);
+    }
+
+    private static EmbeddedRepository repository() throws IOException {
+        return new EmbeddedRepository(Optional.empty(), 64, 5_000, 600_000);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+}
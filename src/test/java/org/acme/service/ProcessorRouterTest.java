@@ -0,0 +1,115 @@
+package org.acme.service;
+
+import org.acme.dto.HealthCheckResponseDTO;
+import org.acme.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.acme.service.ProcessorRouter.DEFAULT;
+import static org.acme.service.ProcessorRouter.FALLBACK;
+import static org.acme.service.ProcessorRouter.NONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProcessorRouterTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void prefersDefaultWhileItIsCheapEnough() {
+        ProcessorRouter router = router(60_000, false);
+        assertEquals(DEFAULT, router.choose());
+
+        router.recordResponse(DEFAULT, 2 * MS, 200);
+        assertEquals(DEFAULT, router.choose());
+    }
+
+    @Test
+    void switchesToFallbackWhenDefaultKeepsFailing() {
+        ProcessorRouter router = router(60_000, false);
+        router.recordResponse(DEFAULT, 2 * MS, 200);
+
+        router.recordFailure(DEFAULT, 2 * MS);
+        router.recordResponse(DEFAULT, 2 * MS, 500);
+        assertEquals(FALLBACK, router.choose());
+    }
+
+    @Test
+    void switchesToFallbackWhenDefaultIsTooSlow() {
+        ProcessorRouter router = router(60_000, false);
+        router.recordResponse(DEFAULT, 10 * MS, 200);
+        assertEquals(FALLBACK, router.choose());
+
+        router.recordResponse(FALLBACK, 5 * MS, 200);
+        assertEquals(DEFAULT, router.choose());
+    }
+
+    @Test
+    void skipsProcessorsReportedFailing() {
+        ProcessorRouter router = router(60_000, false);
+        router.recordHealth(DEFAULT, new HealthCheckResponseDTO(true, 0));
+        assertEquals(FALLBACK, router.choose());
+
+        router.recordHealth(FALLBACK, null);
+        assertEquals(NONE, router.choose());
+
+        router.recordHealth(FALLBACK, new HealthCheckResponseDTO(false, 0));
+        assertEquals(FALLBACK, router.choose());
+    }
+
+    @Test
+    void usesTheReportedMinimumResponseTimeAsTheLatencyFloor() {
+        ProcessorRouter router = router(60_000, false);
+        router.recordHealth(DEFAULT, new HealthCheckResponseDTO(false, 10));
+        assertEquals(FALLBACK, router.choose());
+    }
+
+    @Test
+    void driftsBackToNeutralWithoutCalls() throws InterruptedException {
+        ProcessorRouter router = router(20, false);
+        for (int i = 0; i < 5; i++) {
+            router.recordFailure(DEFAULT, 2 * MS);
+        }
+        assertEquals(FALLBACK, router.choose());
+
+        Thread.sleep(300);
+        assertEquals(DEFAULT, router.choose());
+    }
+
+    @Test
+    void startsOverWhenHealthStopsReportingFailure() {
+        ProcessorRouter router = router(60_000, false);
+        for (int i = 0; i < 5; i++) {
+            router.recordFailure(DEFAULT, 2 * MS);
+        }
+        router.recordHealth(DEFAULT, new HealthCheckResponseDTO(true, 0));
+        assertEquals(FALLBACK, router.choose());
+
+        router.recordHealth(DEFAULT, new HealthCheckResponseDTO(false, 0));
+        assertEquals(DEFAULT, router.choose());
+    }
+
+    @Test
+    void sendsAProbeToAHalfOpenBreakerRegardlessOfCost() {
+        ProcessorRouter router = router(60_000, true);
+        router.recordFailure(DEFAULT, 2 * MS);
+
+        assertEquals(DEFAULT, router.choose());
+        assertEquals(FALLBACK, router.choose());
+
+        router.recordResponse(DEFAULT, 2 * MS, 200);
+        assertEquals(DEFAULT, router.choose());
+    }
+
+    @Test
+    void returnsNoneWhenEveryBreakerIsOpen() {
+        ProcessorRouter router = new ProcessorRouter(new MetricsRegistry(), 3.0, 0.2, 60_000,
+                true, 10, 1, 0.5, 1, 1_000, 60_000, 1);
+        router.recordFailure(DEFAULT, 2 * MS);
+        router.recordFailure(FALLBACK, 2 * MS);
+        assertEquals(NONE, router.choose());
+    }
+
+    private static ProcessorRouter router(long statsHalfLifeMs, boolean breakerEnabled) {
+        return new ProcessorRouter(new MetricsRegistry(), 3.0, 0.2, statsHalfLifeMs,
+                breakerEnabled, 10, 1, 0.5, 1, 1_000, 0, 1);
+    }
+}
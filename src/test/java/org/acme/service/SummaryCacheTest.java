@@ -0,0 +1,139 @@
+package org.acme.service;
+
+import org.acme.entity.PaymentTotals;
+import org.acme.entity.PaymentsSummaryResponse;
+import org.acme.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SummaryCacheTest {
+
+    private static final long STABLE_LAG_MS = 1_000;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final FakeLedger ledger = new FakeLedger();
+
+    @Test
+    void servesAClosedStableRangeFromTheCache() {
+        SummaryCache cache = new SummaryCache(metrics, 16, STABLE_LAG_MS);
+        long now = System.currentTimeMillis();
+        ledger.add(now - 20_000, 100);
+        ledger.add(now - 15_000, 200);
+        long from = now - 30_000;
+        long to = now - 10_000;
+
+        assertEquals(ledger.sum(from, to), summary(cache.get(from, to, 0, ledger::totals)));
+        assertEquals(1, ledger.calls.size());
+
+        ledger.calls.clear();
+        assertEquals(ledger.sum(from, to), summary(cache.get(from, to, 0, ledger::totals)));
+        assertEquals(List.of(), ledger.calls);
+        assertEquals(1, count("summary-cache.misses"));
+        assertEquals(1, count("summary-cache.hits"));
+    }
+
+    @Test
+    void foldsInOnlyTheSliceSinceTheLastWatermark() throws InterruptedException {
+        SummaryCache cache = new SummaryCache(metrics, 16, STABLE_LAG_MS);
+        long from = System.currentTimeMillis() - 30_000;
+        ledger.add(from + 1_000, 100);
+
+        PaymentTotals first = cache.get(from, null, 0, ledger::totals);
+        assertEquals(ledger.sum(from, null), summary(first));
+        long watermark = ledger.calls.get(0)[1];
+
+        Thread.sleep(20);
+        ledger.add(System.currentTimeMillis(), 300);
+        ledger.calls.clear();
+
+        assertEquals(ledger.sum(from, null), summary(cache.get(from, null, 0, ledger::totals)));
+        assertEquals(watermark + 1, ledger.calls.get(0)[0]);
+        assertEquals(1, count("summary-cache.refreshes"));
+    }
+
+    @Test
+    void dropsEveryEntryWhenTheLedgerEpochChanges() {
+        SummaryCache cache = new SummaryCache(metrics, 16, STABLE_LAG_MS);
+        long now = System.currentTimeMillis();
+        long from = now - 30_000;
+        long to = now - 10_000;
+        ledger.add(now - 20_000, 100);
+        cache.get(from, to, 0, ledger::totals);
+
+        ledger.add(now - 25_000, 700);
+        assertEquals(ledger.sum(from, to), summary(cache.get(from, to, 1, ledger::totals)));
+        assertEquals(2, count("summary-cache.misses"));
+        assertEquals(0, count("summary-cache.hits"));
+
+        assertEquals(ledger.sum(from, to), summary(cache.get(from, to, 1, ledger::totals)));
+        assertEquals(1, count("summary-cache.hits"));
+    }
+
+    @Test
+    void readsARangeNewerThanTheLagLive() {
+        SummaryCache cache = new SummaryCache(metrics, 16, STABLE_LAG_MS);
+        long from = System.currentTimeMillis();
+
+        cache.get(from, null, 0, ledger::totals);
+        cache.get(from, null, 0, ledger::totals);
+        assertEquals(2, ledger.calls.size());
+        assertEquals(0, count("summary-cache.misses"));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedRange() {
+        SummaryCache cache = new SummaryCache(metrics, 1, STABLE_LAG_MS);
+        long now = System.currentTimeMillis();
+
+        cache.get(now - 30_000, now - 10_000, 0, ledger::totals);
+        cache.get(now - 40_000, now - 10_000, 0, ledger::totals);
+        cache.get(now - 30_000, now - 10_000, 0, ledger::totals);
+        assertEquals(3, count("summary-cache.misses"));
+        assertEquals(0, count("summary-cache.hits"));
+    }
+
+    private long count(String name) {
+        return metrics.counter(name).sum();
+    }
+
+    private static PaymentsSummaryResponse summary(PaymentTotals totals) {
+        return totals.toResponse();
+    }
+
+    private static final class FakeLedger {
+
+        private final TreeMap<Long, Long> cents = new TreeMap<>();
+        private final List<long[]> calls = new ArrayList<>();
+
+        void add(long timestamp, long amountCents) {
+            cents.merge(timestamp, amountCents, Long::sum);
+        }
+
+        PaymentTotals totals(Long from, Long to) {
+            calls.add(new long[]{from == null ? Long.MIN_VALUE : from, to == null ? Long.MAX_VALUE : to});
+            PaymentTotals totals = new PaymentTotals();
+            for (Map.Entry<Long, Long> entry : range(from, to).entrySet()) {
+                totals.add("default", 1, entry.getValue());
+            }
+            return totals;
+        }
+
+        PaymentsSummaryResponse sum(Long from, Long to) {
+            PaymentTotals totals = new PaymentTotals();
+            for (long value : range(from, to).values()) {
+                totals.add("default", 1, value);
+            }
+            return totals.toResponse();
+        }
+
+        private Map<Long, Long> range(Long from, Long to) {
+            return cents.subMap(from == null ? Long.MIN_VALUE : from, true, to == null ? Long.MAX_VALUE : to, true);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.acme.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.put(id);
+        }
+
+        for (UUID id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) falsePositives++;
+        }
+        assertTrue(falsePositives < probes * 0.02, "false positive rate " + (double) falsePositives / probes);
+    }
+
+    @Test
+    void startsEmpty() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertFalse(filter.mightContain(UUID.randomUUID()));
+        assertFalse(filter.mightContain(new UUID(0, 0)));
+    }
+
+    @Test
+    void keepsConcurrentInserts() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        UUID[][] ids = new UUID[4][10_000];
+        Thread[] threads = new Thread[ids.length];
+        for (int t = 0; t < threads.length; t++) {
+            UUID[] batch = ids[t];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = UUID.randomUUID();
+            }
+            threads[t] = new Thread(() -> {
+                for (UUID id : batch) {
+                    filter.put(id);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (UUID[] batch : ids) {
+            for (UUID id : batch) {
+                assertTrue(filter.mightContain(id));
+            }
+        }
+    }
+}
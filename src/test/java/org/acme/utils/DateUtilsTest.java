@@ -0,0 +1,72 @@
+package org.acme.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateUtilsTest {
+
+    @Test
+    void formatsLikeTheFormatter() {
+        Random random = new Random(42);
+        long min = Instant.parse("0001-01-01T00:00:00Z").toEpochMilli();
+        long max = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli();
+        for (int i = 0; i < 100_000; i++) {
+            long epochMilli = min + Math.floorMod(random.nextLong(), max - min + 1);
+            assertEquals(DateUtils.FORMATTER.format(Instant.ofEpochMilli(epochMilli)), DateUtils.formatEpochMilli(epochMilli));
+        }
+    }
+
+    @Test
+    void roundTripsConsecutiveMillis() {
+        long start = Instant.parse("2024-02-28T23:59:58.500Z").toEpochMilli();
+        for (long epochMilli = start; epochMilli < start + 3_000; epochMilli++) {
+            String formatted = DateUtils.formatEpochMilli(epochMilli);
+            assertEquals(DateUtils.LENGTH, formatted.length());
+            assertEquals(epochMilli, DateUtils.parseIsoUtcToEpochMilli(formatted));
+        }
+    }
+
+    @Test
+    void handlesCalendarEdges() {
+        assertEquals("1970-01-01T00:00:00.000Z", DateUtils.formatEpochMilli(0));
+        assertEquals("1969-12-31T23:59:59.999Z", DateUtils.formatEpochMilli(-1));
+        assertEquals(Instant.parse("2000-02-29T12:00:00Z").toEpochMilli(), DateUtils.parseIsoUtcToEpochMilli("2000-02-29T12:00:00.000Z"));
+        assertEquals(Instant.parse("2100-03-01T00:00:00Z").toEpochMilli(), DateUtils.parseIsoUtcToEpochMilli("2100-03-01T00:00:00.000Z"));
+    }
+
+    @Test
+    void fallsBackForOtherLayouts() {
+        long expected = Instant.parse("2025-07-15T12:34:56.789Z").toEpochMilli();
+        assertEquals(expected, DateUtils.parseIsoUtcToEpochMilli("2025-07-15T12:34:56.789+00:00"));
+        assertEquals(expected, DateUtils.parseIsoUtcToEpochMilli("2025-07-15T09:34:56.789-03:00"));
+        assertEquals(expected, DateUtils.parseIsoUtcToEpochMilli("2025-07-15T12:34:56.789"));
+        assertEquals(expected - 789, DateUtils.parseIsoUtcToEpochMilli("2025-07-15T12:34:56Z"));
+        assertEquals(expected, DateUtils.parseIsoUtcToEpochMilli("2025-07-15T12:34:56.789123Z"));
+    }
+
+    @Test
+    void rejectsNothingToParse() {
+        assertNull(DateUtils.parseIsoUtcToEpochMilli(null));
+        assertNull(DateUtils.parseIsoUtcToEpochMilli(" "));
+    }
+
+    @Test
+    void leavesOutOfRangeYearsToTheFormatter() {
+        long beforeYearOne = Instant.parse("0001-01-01T00:00:00Z").toEpochMilli() - 1;
+        long afterYear9999 = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli() + 1;
+
+        byte[] buffer = new byte[DateUtils.LENGTH];
+        assertFalse(DateUtils.writeEpochMilli(beforeYearOne, buffer, 0));
+        assertFalse(DateUtils.writeEpochMilli(afterYear9999, buffer, 0));
+        assertEquals(0, buffer[0]);
+
+        assertEquals(DateUtils.FORMATTER.format(Instant.ofEpochMilli(beforeYearOne)), DateUtils.formatEpochMilli(beforeYearOne));
+        assertEquals(DateUtils.FORMATTER.format(Instant.ofEpochMilli(afterYear9999)), DateUtils.formatEpochMilli(afterYear9999));
+    }
+}
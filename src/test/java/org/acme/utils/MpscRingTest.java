@@ -0,0 +1,106 @@
+package org.acme.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new MpscRing<Integer>(5).capacity());
+        assertEquals(8, new MpscRing<Integer>(8).capacity());
+        assertEquals(2, new MpscRing<Integer>(0).capacity());
+    }
+
+    @Test
+    void keepsOrderAndRefusesWhenFull() {
+        MpscRing<Integer> ring = new MpscRing<>(4);
+        assertTrue(ring.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void drainsUpToTheLimitAcrossTheWrap() {
+        MpscRing<Integer> ring = new MpscRing<>(4);
+        List<Integer> drained = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ring.offer(round * 3 + i));
+            }
+            assertEquals(2, ring.drainTo(drained, 2));
+            assertEquals(1, ring.drainTo(drained, 10));
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), drained);
+    }
+
+    @Test
+    void deliversEveryOfferFromManyProducersOnce() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRing<Integer> ring = new MpscRing<>(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; ) {
+                    if (ring.offer(base + i)) {
+                        i++;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        BitSet seen = new BitSet(producers * perProducer);
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        boolean ordered = true;
+        boolean duplicate = false;
+        int received = 0;
+        while (received < producers * perProducer) {
+            Integer value = ring.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            duplicate |= seen.get(value);
+            seen.set(value);
+            int producer = value / perProducer;
+            ordered &= value > lastPerProducer[producer];
+            lastPerProducer[producer] = value;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(duplicate);
+        assertTrue(ordered, "each producer's offers arrive in order");
+        assertEquals(producers * perProducer, seen.cardinality());
+        assertTrue(ring.isEmpty());
+    }
+}
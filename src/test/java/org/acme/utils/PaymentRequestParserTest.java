@@ -0,0 +1,73 @@
+package org.acme.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.acme.entity.PaymentQueueItens;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PaymentRequestParserTest {
+
+    private static final String ID = "4a7901b8-7d26-4d9d-aa19-4dc1c7cf60b3";
+    private static final UUID CORRELATION_ID = UUID.fromString(ID);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void scansTheCanonicalShape() {
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 1990), parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.90}"));
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 1990), parse("{ \"amount\": 19.9,\n \"correlationId\": \"" + ID + "\" }"));
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 50), parse("{\"correlationId\":\"" + ID + "\",\"amount\":0.5}"));
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 700), parse("{\"correlationId\":\"" + ID.toUpperCase() + "\",\"amount\":7}"));
+    }
+
+    @Test
+    void leavesEverythingElseToTheFallback() {
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.999}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":1.99e1}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":019.90}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":\"19.90\"}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.90,\"amount\":1}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.90,\"note\":1}"));
+        assertNull(parse("{\"correl\\u0061tionId\":\"" + ID + "\",\"amount\":19.90}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\"}"));
+        assertNull(parse("{\"correlationId\":\"" + ID + "\",\"amount\":19.90} x"));
+        assertNull(parse("{\"correlationId\":\"not-a-uuid\",\"amount\":19.90}"));
+        assertNull(parse(""));
+    }
+
+    @Test
+    void bindsOtherLayoutsOfTheSameValues() {
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 1990), read("{\"correlationId\":\"" + ID + "\",\"amount\":1.99e1}"));
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 1990), read("{\"correlationId\":\"" + ID + "\",\"amount\":19.900}"));
+        assertEquals(new PaymentQueueItens(CORRELATION_ID, 1990), read("{\"correl\\u0061tionId\":\"" + ID + "\",\"amount\":19.90}"));
+    }
+
+    @Test
+    void refusesSubCentAmounts() {
+        assertNull(read("{\"correlationId\":\"" + ID + "\",\"amount\":19.999}"));
+        assertNull(read("{\"correlationId\":\"" + ID + "\",\"amount\":0.001}"));
+        assertNull(read("{\"correlationId\":\"" + ID + "\",\"amount\":1.9999e1}"));
+    }
+
+    @Test
+    void refusesIncompleteOrInvalidBodies() {
+        assertNull(read("{\"correlationId\":\"" + ID + "\"}"));
+        assertNull(read("{\"amount\":19.90}"));
+        assertNull(read("{\"correlationId\":\"not-a-uuid\",\"amount\":19.90}"));
+        assertNull(read("not json"));
+    }
+
+    private static PaymentQueueItens parse(String body) {
+        return PaymentRequestParser.parse(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PaymentQueueItens read(String body) {
+        return PaymentRequestParser.read(body.getBytes(StandardCharsets.UTF_8), objectMapper);
+    }
+}
@@ -0,0 +1,117 @@
+package org.acme.worker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = 1_000_000;
+
+    @Test
+    void clampsTheInitialLimit() {
+        assertEquals(10, new AdaptiveLimiter(100, 2, 10, 50).getLimit());
+        assertEquals(2, new AdaptiveLimiter(1, 2, 10, 50).getLimit());
+    }
+
+    @Test
+    void growsByAboutOnePermitPerLimitOfFastCallsWhileBusy() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 10, 1_000);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.release(FAST, true);
+        assertEquals(5, limiter.getLimit());
+        assertEquals(3, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhileMostPermitsAreIdle() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16, 1_000);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOncePerTargetLatencyWindow() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16, 60_000);
+        limiter.acquire();
+        limiter.release(FAST, false);
+        assertEquals(6, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.release(FAST, false);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void countsSlowSuccessesAsBad() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16, 10);
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(20), true);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void neverBacksOffBelowTheFloor() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(5, 4, 16, 1);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(FAST, false);
+            Thread.sleep(2);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void neutralReleaseLeavesTheLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 10, 1_000);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release();
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void blocksAcquireAtTheLimitUntilAPermitIsReleased() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1_000);
+        limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        limiter.release();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, limiter.getInFlight());
+    }
+}